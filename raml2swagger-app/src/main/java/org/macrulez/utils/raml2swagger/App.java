@@ -21,50 +21,115 @@
 package org.macrulez.utils.raml2swagger;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.output.NullOutputStream;
 import org.raml.parser.loader.CompositeResourceLoader;
 import org.raml.parser.loader.FileResourceLoader;
 import org.raml.parser.loader.UrlResourceLoader;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /*
     Program to convert RAML 0.8 definition to Swagger 2.0 definition
  */
 @Slf4j
 public class App {
+    private static final String MERGE_OPTION = "--merge";
+    private static final String DEFAULT_MERGE_OUTPUT = "swagger.json";
+    private static final String ANALYZE_OPTION = "--analyze";
+    private static final String SORT_KEYS_OPTION = "--sort-keys";
+    private static final String RESOLVE_REFS_OPTION = "--resolve-refs";
+    private static final int DEFAULT_TOP = 10;
+    private static final int PREFETCH_THREADS = 8;
+
+    //Exit status of a command line which can not be run
+    private static final int USAGE_STATUS = 2;
+
+    //Fetches the includes of the specs concurrently, its threads are only started by a conversion
+    private final ExecutorService prefetchExecutor = Executors.newFixedThreadPool(PREFETCH_THREADS);
+
     public static void main(String[] args) {
-        new App().run(args);
+        App app = new App();
+        try {
+            app.run(args);
+        } catch (UsageException e) {
+            LOGGER.error(e.getMessage());
+            usage();
+            System.exit(USAGE_STATUS);
+        } finally {
+            app.prefetchExecutor.shutdown();
+        }
     }
 
-    private void run(String[] args) {
+    private static void usage() {
+        LOGGER.error("Usage: java -jar raml2swagger.jar [--sort-keys] [--resolve-refs inline|definitions] <raml-file> [<output-file>]");
+        LOGGER.error("       java -jar raml2swagger.jar --merge [--conflict prefix|fail|last-wins] [--title <title>] [--sort-keys] [--resolve-refs inline|definitions] [--output <output-file>] <raml-file>...");
+        LOGGER.error("       java -jar raml2swagger.jar --analyze [--top <n>] <recording.jfr>");
+    }
+
+    private void run(String[] args) throws UsageException {
         RAMLtoSwagger converter = new RAMLtoSwagger();
-        String inputFileName;
+        converter.setPrefetchExecutor(prefetchExecutor);
+        String inputFileName = null;
         String outputFileName = null;
 
         if (args.length < 1) {
-            LOGGER.error("Usage: java -jar raml2swagger.jar <raml-file>");
+            usage();
+            return;
+        }
+
+        if (MERGE_OPTION.equals(args[0])) {
+            merge(args);
             return;
         }
 
-        inputFileName = args[0];
+        if (ANALYZE_OPTION.equals(args[0])) {
+            analyze(args);
+            return;
+        }
 
-        if (args.length > 1) {
-            outputFileName = args[1];
+        for (int i = 0; i < args.length; i++) {
+            if (SORT_KEYS_OPTION.equals(args[i])) {
+                converter.setOutputOrder(OutputOrder.SORTED);
+            } else if (RESOLVE_REFS_OPTION.equals(args[i])) {
+                converter.setRefResolution(option(RefResolution.class, args, ++i));
+            } else if (inputFileName == null) {
+                inputFileName = args[i];
+            } else {
+                outputFileName = args[i];
+            }
+        }
+        if (inputFileName == null) {
+            LOGGER.error("No input file given");
+            return;
         }
 
         try {
             String json;
             LOGGER.info("Converting {}...", inputFileName);
 
-            try (InputStream fileStream = new FileInputStream(new File(inputFileName))) {
-                json = converter.convertToSwagger(fileStream, new CompositeResourceLoader(new UrlResourceLoader(), new FileResourceLoader(".")));
-            }
+            json = converter.convertToSwagger(Paths.get(inputFileName), new CompositeResourceLoader(new UrlResourceLoader(), new FileResourceLoader(".")));
 
             if (json != null) {
-                //Process the json string - unescaping special chars and then, write to a file
-                try (PrintWriter output = new PrintWriter(getOutputStream(inputFileName, outputFileName))) {
-                    output.println(json);
-                    output.flush();
+                //Always a line feed at the end, so the content does not depend on the platform
+                byte[] content = (json + "\n").getBytes(StandardCharsets.UTF_8);
+                File output = getOutputFile(inputFileName, outputFileName);
+                if (isUnchanged(output, digest(new ByteArrayInputStream(content)))) {
+                    LOGGER.info("Output file {} is unchanged, not rewritten", output);
+                } else {
+                    try (OutputStream outputStream = getOutputStream(output)) {
+                        outputStream.write(content);
+                        outputStream.flush();
+                    }
                 }
 
                 LOGGER.info("Done.");
@@ -74,22 +139,177 @@ public class App {
         }
     }
 
-    private OutputStream getOutputStream(String inputFileName, String outputFileName) {
-        OutputStream outputStream;
+    //Convert all the RAML files in parallel and write them as a single Swagger document
+    private void merge(String[] args) throws UsageException {
+        SwaggerMerger merger = new SwaggerMerger();
+        merger.setPrefetchExecutor(prefetchExecutor);
+        List<SwaggerMerger.Source> sources = new ArrayList<>();
+        String outputFileName = DEFAULT_MERGE_OUTPUT;
+
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--conflict":
+                    merger.setConflictPolicy(option(ConflictPolicy.class, args, ++i));
+                    break;
+                case "--title":
+                    merger.setTitle(value(args, ++i));
+                    break;
+                case "--output":
+                    outputFileName = value(args, ++i);
+                    break;
+                case SORT_KEYS_OPTION:
+                    merger.setOutputOrder(OutputOrder.SORTED);
+                    break;
+                case RESOLVE_REFS_OPTION:
+                    merger.setRefResolution(option(RefResolution.class, args, ++i));
+                    break;
+                default:
+                    sources.add(SwaggerMerger.Source.of(new File(args[i])));
+            }
+        }
+
+        LOGGER.info("Merging {} files...", sources.size());
+        SwaggerMerger.Merged merged = merger.merge(sources);
+        if (merged == null) {
+            return;
+        }
+
+        //The merged document is streamed, so it is hashed first and only written if it changed
+        File outputFile = new File(outputFileName);
+        try {
+            MessageDigest digest = newDigest();
+            try (Writer output = new OutputStreamWriter(new DigestOutputStream(NullOutputStream.NULL_OUTPUT_STREAM, digest), StandardCharsets.UTF_8)) {
+                merged.write(output);
+            }
+            if (isUnchanged(outputFile, digest.digest())) {
+                LOGGER.info("Output file {} is unchanged, not rewritten", outputFileName);
+                LOGGER.info("Done.");
+                return;
+            }
+
+            try (Writer output = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8))) {
+                merged.write(output);
+            }
+        } catch (IOException e) {
+            LOGGER.error("I/O Error writing file: {}", outputFileName);
+            return;
+        }
+
+        LOGGER.info("Output file is: {}", outputFileName);
+        LOGGER.info("Done.");
+    }
+
+    //Print the most expensive resources of the conversions in a flight recording
+    private void analyze(String[] args) throws UsageException {
+        int top = DEFAULT_TOP;
+        String recording = null;
+
+        for (int i = 1; i < args.length; i++) {
+            if ("--top".equals(args[i])) {
+                top = count(args, ++i);
+            } else {
+                recording = args[i];
+            }
+        }
+
+        if (recording == null) {
+            LOGGER.error("No recording given");
+            return;
+        }
+
+        try {
+            new RecordingAnalyzer().analyze(Paths.get(recording), top);
+        } catch (IOException e) {
+            LOGGER.error("I/O Error reading recording: {}", recording);
+        }
+    }
+
+    //The value of the option before the index
+    private static String value(String[] args, int index) throws UsageException {
+        if (index >= args.length) {
+            throw new UsageException("Missing value of " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    //The constant named by the value of the option before the index, in lower case with dashes
+    private static <E extends Enum<E>> E option(Class<E> type, String[] args, int index) throws UsageException {
+        String value = value(args, index);
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new UsageException("Invalid value of " + args[index - 1] + ": " + value);
+        }
+    }
 
+    //The positive number of the option before the index
+    private static int count(String[] args, int index) throws UsageException {
+        String value = value(args, index);
+        try {
+            int count = Integer.parseInt(value);
+            if (count > 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            //Reported below
+        }
+        throw new UsageException("Invalid value of " + args[index - 1] + ", not a positive number: " + value);
+    }
+
+    private File getOutputFile(String inputFileName, String outputFileName) {
         if (outputFileName == null) {
             int index = inputFileName.lastIndexOf('.');
             outputFileName = inputFileName.substring(0, index) + ".json";
         }
+        return new File(outputFileName);
+    }
+
+    private OutputStream getOutputStream(File outputFile) {
+        OutputStream outputStream;
 
         try {
-            outputStream = new FileOutputStream(outputFileName);
+            outputStream = new FileOutputStream(outputFile);
         } catch (IOException e) {
-            LOGGER.error("Error creating file: {}, falling back to standard output", outputFileName);
+            LOGGER.error("Error creating file: {}, falling back to standard output", outputFile);
             outputStream = System.out;
         }
 
-        LOGGER.info("Output file is: {}", outputFileName);
+        LOGGER.info("Output file is: {}", outputFile);
         return outputStream;
     }
+
+    //Whether the file exists with the content of the SHA-256 hash
+    private boolean isUnchanged(File file, byte[] hash) throws IOException {
+        if (!file.isFile()) {
+            return false;
+        }
+        try (InputStream input = new FileInputStream(file)) {
+            return MessageDigest.isEqual(hash, digest(input));
+        }
+    }
+
+    private static byte[] digest(InputStream input) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+            digest.update(buffer, 0, read);
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //Every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //A command line which can not be run
+    private static class UsageException extends Exception {
+        UsageException(String message) {
+            super(message);
+        }
+    }
 }
@@ -0,0 +1,111 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/*
+    Reads a flight recording of conversions and prints the most expensive resources and schemas, and the time spent in
+    every phase. Conversions are recorded with -XX:StartFlightRecording=filename=<file>.jfr
+ */
+@Slf4j
+class RecordingAnalyzer {
+    private static final String RESOURCE_EVENT = "org.macrulez.raml2swagger.Resource";
+    private static final String SCHEMA_EVENT = "org.macrulez.raml2swagger.Schema";
+    private static final String PHASE_EVENT = "org.macrulez.raml2swagger.Phase";
+
+    //Events of the same resource, schema or phase, over all the conversions in the recording
+    private static class Total {
+        private final String name;
+        private long nanos;
+        private int count;
+        private String details;
+
+        Total(String name) {
+            this.name = name;
+        }
+    }
+
+    private final Map<String, Total> resources = new HashMap<>();
+    private final Map<String, Total> schemas = new HashMap<>();
+    private final Map<String, Total> phases = new LinkedHashMap<>();
+
+    void analyze(Path recording, int top) throws IOException {
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                switch (event.getEventType().getName()) {
+                    case RESOURCE_EVENT:
+                        add(resources, event.getString("uri"), event,
+                                event.getInt("actions") + " actions, " + event.getInt("parameters") + " parameters");
+                        break;
+                    case SCHEMA_EVENT:
+                        add(schemas, event.getString("name"), event, event.getLong("size") + " chars");
+                        break;
+                    case PHASE_EVENT:
+                        add(phases, event.getString("phase"), event, null);
+                        break;
+                    default:
+                }
+            }
+        }
+
+        if (resources.isEmpty() && phases.isEmpty()) {
+            LOGGER.info("No conversion events in {}", recording);
+            return;
+        }
+
+        print("Most expensive resources:", top(resources.values(), top));
+        print("Most expensive schemas:", top(schemas.values(), top));
+        print("Time per phase:", phases.values());
+    }
+
+    private static void add(Map<String, Total> totals, String name, RecordedEvent event, String details) {
+        Total total = totals.computeIfAbsent(String.valueOf(name), Total::new);
+        total.nanos += event.getDuration().toNanos();
+        total.count++;
+        total.details = details;
+    }
+
+    private static List<Total> top(Collection<Total> totals, int top) {
+        List<Total> sorted = new ArrayList<>(totals);
+        sorted.sort(Comparator.comparingLong((Total total) -> total.nanos).reversed());
+        return sorted.subList(0, Math.min(top, sorted.size()));
+    }
+
+    private static void print(String heading, Collection<Total> totals) {
+        if (totals.isEmpty()) {
+            return;
+        }
+
+        LOGGER.info(heading);
+        for (Total total : totals) {
+            LOGGER.info(String.format("%10.3f ms  %4dx  %s%s", total.nanos / 1e6, total.count, total.name,
+                    total.details == null ? "" : " (" + total.details + ")"));
+        }
+    }
+}
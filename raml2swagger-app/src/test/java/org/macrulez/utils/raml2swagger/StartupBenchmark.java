@@ -0,0 +1,109 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/*
+    Startup benchmark: runs the command line utility as a fresh process on one spec, as the plain jar, with the CDS
+    archive and as a native image, and compares the wall clock times. Variants whose artifact was not built are skipped.
+    See the startup-benchmark profile of the pom for the properties.
+ */
+@Slf4j
+public class StartupBenchmark {
+    private static final int WARMUP_RUNS = 2;
+
+    public static void main(String[] args) throws Exception {
+        new StartupBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        String java = System.getProperty("benchmark.java", System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        int runs = Integer.getInteger("benchmark.runs", 10);
+        File jar = new File(System.getProperty("benchmark.jar"));
+        File cds = new File(System.getProperty("benchmark.cds"));
+        File image = new File(System.getProperty("benchmark.native"));
+        String spec = System.getProperty("benchmark.spec");
+
+        if (!jar.isFile()) {
+            LOGGER.error("Jar not found: {}, run the package phase first", jar);
+            return;
+        }
+
+        File output = File.createTempFile("startup-benchmark", ".json");
+        File log = File.createTempFile("startup-benchmark", ".log");
+        try {
+            long baseline = measure("jar", runs, log, java, "-jar", jar.getPath(), spec, output.getPath());
+
+            if (cds.isFile()) {
+                report("cds", baseline, measure("cds", runs, log, java, "-XX:SharedArchiveFile=" + cds.getPath(), "-jar", jar.getPath(), spec, output.getPath()));
+            } else {
+                LOGGER.info("No CDS archive at {}, skipped", cds);
+            }
+
+            if (image.isFile()) {
+                report("native", baseline, measure("native", runs, log, image.getPath(), spec, output.getPath()));
+            } else {
+                LOGGER.info("No native image at {}, skipped", image);
+            }
+        } finally {
+            Files.deleteIfExists(output.toPath());
+            Files.deleteIfExists(log.toPath());
+        }
+    }
+
+    //Median wall clock time of the runs in nanoseconds
+    private long measure(String name, int runs, File log, String... command) throws IOException, InterruptedException {
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < WARMUP_RUNS + runs; i++) {
+            ProcessBuilder builder = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log);
+
+            long start = System.nanoTime();
+            int exitCode = builder.start().waitFor();
+            long time = System.nanoTime() - start;
+
+            if (exitCode != 0) {
+                throw new IllegalStateException(name + " exited with " + exitCode + ": " + Arrays.toString(command));
+            }
+            if (i >= WARMUP_RUNS) {
+                times.add(time);
+            }
+        }
+
+        Collections.sort(times);
+        long median = times.get(times.size() / 2);
+        LOGGER.info("{}: min {} ms, median {} ms, max {} ms over {} runs", name, times.get(0) / 1_000_000,
+                median / 1_000_000, times.get(times.size() - 1) / 1_000_000, runs);
+        return median;
+    }
+
+    private void report(String name, long baseline, long median) {
+        LOGGER.info("{}: {}x faster startup than the plain jar", name, String.format("%.1f", (double) baseline / median));
+    }
+}
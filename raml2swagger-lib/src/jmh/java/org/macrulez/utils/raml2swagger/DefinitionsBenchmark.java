@@ -0,0 +1,140 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schema to definition conversion: the single pass of {@link RAMLtoSwagger#getDefinition(String)} against the former
+ * implementation, which parsed the schema twice, every property once more and then walked the tree recursively.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefinitionsBenchmark {
+    @Param({"10", "100", "1000"})
+    private int properties;
+
+    //Nesting depth of every property
+    @Param({"1", "5"})
+    private int depth;
+
+    private String schema;
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"$schema\": \"http://json-schema.org/draft-03/schema\", \"type\": \"object\", \"required\": true, \"properties\": {");
+        for (int i = 0; i < properties; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("\"field").append(i).append("\": ");
+            property(sb, i, depth);
+        }
+        sb.append("}}");
+        schema = sb.toString();
+    }
+
+    private static void property(StringBuilder sb, int index, int depth) {
+        if (depth <= 1) {
+            sb.append("{\"type\": \"string\", \"required\": ").append(index % 2 == 0).append(", \"description\": \"Field ").append(index).append("\"}");
+            return;
+        }
+        sb.append("{\"type\": \"object\", \"required\": ").append(index % 2 == 0).append(", \"properties\": {\"nested\": ");
+        property(sb, index, depth - 1);
+        sb.append("}}");
+    }
+
+    @Benchmark
+    public JSONObject singlePass() throws JSONException {
+        return RAMLtoSwagger.getDefinition(schema);
+    }
+
+    @Benchmark
+    public JSONObject legacy() throws JSONException {
+        return legacyDefinition(schema);
+    }
+
+    //The former implementation, kept here as the baseline
+    private static JSONObject legacyDefinition(String schema) throws JSONException {
+        JSONObject coll = new JSONObject();
+        JSONArray reqArr = new JSONArray();
+        JSONObject newObj = new JSONObject(schema);
+
+        JSONObject propObj = null;
+        if (newObj.has("properties")) {
+            propObj = (JSONObject) newObj.get("properties");
+        }
+
+        if (propObj != null) {
+            Iterator<?> keys = propObj.keys();
+            while (keys.hasNext()) {
+                String key = keys.next().toString();
+                JSONObject obj = new JSONObject(propObj.getString(key));
+                if (obj.has("required")) {
+                    if (obj.getString("required").equals("true")) {
+                        reqArr.put(key);
+                    }
+                }
+            }
+            coll.put("properties", propObj);
+        }
+        legacyHackPropertiesType(propObj);
+
+        if (reqArr.length() > 0) {
+            coll.put("required", reqArr);
+        }
+
+        String type = new JSONObject(schema).getString("type");
+        coll.put("type", type);
+
+        return coll;
+    }
+
+    private static void legacyHackPropertiesType(JSONObject jsonObject) throws JSONException {
+        Iterator<?> keys = jsonObject.keys();
+        while (keys.hasNext()) {
+            String key = keys.next().toString();
+            if (jsonObject.get(key) instanceof JSONObject) {
+                JSONObject jObj = ((JSONObject) jsonObject.get(key));
+                if (jObj.has("required")) {
+                    jObj.remove("required");
+                }
+
+                legacyHackPropertiesType((JSONObject) jsonObject.get(key));
+            } else {
+                if (key.equals("required")) {
+                    jsonObject.remove(key);
+                }
+            }
+        }
+    }
+}
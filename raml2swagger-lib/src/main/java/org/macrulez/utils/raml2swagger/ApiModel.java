@@ -0,0 +1,204 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compact, immutable model of an API between the RAML model and the output: everything the conversion writes, with
+ * the values of the RAML already mapped and resolved.
+ * <p>
+ * The model is a set of tables of fixed size rows of ints, see {@link ModelLayout}: strings are indexes into a string
+ * table, kinds and types are codes, and the lists of a row are ranges of rows of another table. Equal schemas share
+ * one row of the schema table. The model is written as a binary snapshot, which is memory-mapped back without parsing anything, its
+ * strings are only decoded when they are read.
+ */
+final class ApiModel implements ModelLayout {
+    private static final int MAGIC = 0x52324D53;
+    private static final int VERSION = 2;
+
+    private final IntBuffer[] tables;
+
+    //Strings by index, decoded on first use if the model was mapped
+    private final String[] strings;
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer stringBytes;
+
+    //Model built in memory
+    ApiModel(int[][] tables, int[] rowCounts, String[] strings) {
+        this.tables = new IntBuffer[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            this.tables[i] = IntBuffer.wrap(tables[i], 0, rowCounts[i] * WIDTHS[i]).slice();
+        }
+        this.strings = strings;
+        this.stringOffsets = null;
+        this.stringBytes = null;
+    }
+
+    //Model read from a snapshot, which the model keeps using
+    private ApiModel(ByteBuffer snapshot) throws IOException {
+        ByteBuffer buffer = snapshot.duplicate();
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a model snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported model snapshot version " + version);
+        }
+
+        int stringCount = buffer.getInt();
+        int[] rowCounts = new int[WIDTHS.length];
+        for (int i = 0; i < rowCounts.length; i++) {
+            rowCounts[i] = buffer.getInt();
+        }
+
+        stringOffsets = slice(buffer, stringCount + 1).asIntBuffer();
+        tables = new IntBuffer[WIDTHS.length];
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = slice(buffer, rowCounts[i] * WIDTHS[i]).asIntBuffer();
+        }
+        stringBytes = buffer.slice();
+        if (stringBytes.remaining() < stringOffsets.get(stringCount)) {
+            throw new IOException("Truncated model snapshot");
+        }
+        strings = new String[stringCount];
+    }
+
+    //The next ints of the buffer
+    private static ByteBuffer slice(ByteBuffer buffer, int ints) throws IOException {
+        if (ints < 0 || buffer.remaining() < ints * 4L) {
+            throw new IOException("Truncated model snapshot");
+        }
+        ByteBuffer slice = buffer.slice();
+        slice.limit(ints * 4);
+        buffer.position(buffer.position() + ints * 4);
+        return slice;
+    }
+
+    //Map a snapshot written by write(Path), the mapping lives as long as the model
+    static ApiModel map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ApiModel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    //Model of a snapshot in memory
+    static ApiModel of(ByteBuffer snapshot) throws IOException {
+        return new ApiModel(snapshot);
+    }
+
+    //Write the snapshot of the model
+    void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer snapshot = toSnapshot();
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+        }
+    }
+
+    ByteBuffer toSnapshot() {
+        byte[][] encoded = new byte[strings.length][];
+        int bytes = 0;
+        for (int i = 0; i < strings.length; i++) {
+            encoded[i] = string(i).getBytes(StandardCharsets.UTF_8);
+            bytes += encoded[i].length;
+        }
+
+        int ints = 3 + tables.length + strings.length + 1;
+        for (IntBuffer table : tables) {
+            ints += table.limit();
+        }
+
+        ByteBuffer snapshot = ByteBuffer.allocate(ints * 4 + bytes);
+        snapshot.putInt(MAGIC).putInt(VERSION).putInt(strings.length);
+        for (int i = 0; i < tables.length; i++) {
+            snapshot.putInt(rows(i));
+        }
+
+        int offset = 0;
+        for (byte[] string : encoded) {
+            snapshot.putInt(offset);
+            offset += string.length;
+        }
+        snapshot.putInt(offset);
+
+        for (IntBuffer table : tables) {
+            IntBuffer rows = table.duplicate();
+            rows.rewind();
+            while (rows.hasRemaining()) {
+                snapshot.putInt(rows.get());
+            }
+        }
+        for (byte[] string : encoded) {
+            snapshot.put(string);
+        }
+
+        snapshot.flip();
+        return snapshot;
+    }
+
+    int rows(int table) {
+        return tables[table].limit() / WIDTHS[table];
+    }
+
+    //A column of a row of a table
+    int get(int table, int row, int column) {
+        return tables[table].get(row * WIDTHS[table] + column);
+    }
+
+    //The string of a column of a row of a table, null for NONE
+    String string(int table, int row, int column) {
+        int index = get(table, row, column);
+        return index == NONE ? null : string(index);
+    }
+
+    String string(int index) {
+        String string = strings[index];
+        if (string == null) {
+            //Decoding the same string twice on concurrent reads does no harm
+            ByteBuffer bytes = stringBytes.duplicate();
+            bytes.position(stringOffsets.get(index));
+            bytes.limit(stringOffsets.get(index + 1));
+            string = StandardCharsets.UTF_8.decode(bytes).toString();
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    //The strings of a range of values, null for a NONE count
+    String[] values(int first, int count) {
+        if (count == NONE) {
+            return null;
+        }
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = string(VALUE, first + i, VALUE_STRING);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,456 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.raml.model.*;
+import org.raml.model.parameter.AbstractParam;
+import org.raml.model.parameter.UriParameter;
+
+import java.math.BigDecimal;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the {@link ApiModel} of a parsed RAML document. Everything the conversion takes from the RAML model is
+ * read here, once: the base URI is split, the parameters of every operation are collected, the references to the
+ * definitions are made, the security schemes are mapped and the references of the schemas are resolved.
+ */
+@Slf4j
+final class ApiModelBuilder implements Constants, ModelLayout {
+    //Mapping between type names of RAML and Swagger
+    private static final Map<String, String> SCHEME_TYPES = new HashMap<>();
+
+    static {
+        SCHEME_TYPES.put(BASICAUTH_RAML, BASICAUTH_SWGR);
+        SCHEME_TYPES.put(OAUTH2_RAML, OAUTH2_SWGR);
+    }
+
+    private final Raml raml;
+    private final ConversionGuard guard;
+    private final ConversionReport report;
+    private final SchemaRefResolver refResolver;
+
+    //Equal strings share one entry of the string table, unless every occurrence gets its own
+    private final boolean sharingStrings;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIndexes = new HashMap<>();
+
+    //Rows of the schema table by the text in the spec
+    private final Map<String, Integer> schemaRows = new HashMap<>();
+
+    //Rows of the security table by the name of the scheme in the spec, an OAuth 2 scheme has one for every flow
+    private final Map<String, List<Integer>> securityRows = new HashMap<>();
+
+    //Names of the schemas of the spec, which are the definitions
+    private final Set<String> definitionNames = new HashSet<>();
+
+    private final int[][] tables = new int[WIDTHS.length][];
+    private final int[] rowCounts = new int[WIDTHS.length];
+
+    //Templated part of the base path, put before every path
+    private boolean baseUriParamPresent;
+    private int indexBaseUriParam;
+
+    ApiModelBuilder(Raml raml, ConversionGuard guard, ConversionReport report, SchemaRefResolver refResolver, boolean sharingStrings) {
+        this.raml = raml;
+        this.guard = guard;
+        this.report = report;
+        this.refResolver = refResolver;
+        this.sharingStrings = sharingStrings;
+        for (int i = 0; i < tables.length; i++) {
+            tables[i] = new int[WIDTHS[i] * 16];
+        }
+        raml.getSchemas().forEach(schema -> definitionNames.addAll(schema.keySet()));
+    }
+
+    //The model, as far as it got if the conversion was stopped
+    ApiModel build() {
+        document();
+        definitions();
+        securitySchemes();
+        if (!raml.getResources().isEmpty()) {
+            paths(raml.getResources(), new LinkedHashMap<>(), 1);
+        }
+        referencedDefinitions();
+
+        LOGGER.debug("Model with {} strings, {} schemas and {} parameters", strings.size(), rowCounts[SCHEMA], rowCounts[PARAMETER]);
+        return new ApiModel(tables, rowCounts, strings.toArray(new String[0]));
+    }
+
+    //Add a row, its index
+    private int row(int table, int... values) {
+        int row = rowCounts[table]++;
+        int width = WIDTHS[table];
+        if (tables[table].length < rowCounts[table] * width) {
+            tables[table] = Arrays.copyOf(tables[table], tables[table].length * 2);
+        }
+        System.arraycopy(values, 0, tables[table], row * width, values.length);
+        Arrays.fill(tables[table], row * width + values.length, (row + 1) * width, NONE);
+        return row;
+    }
+
+    private int get(int table, int row, int column) {
+        return tables[table][row * WIDTHS[table] + column];
+    }
+
+    private void set(int table, int row, int column, int value) {
+        tables[table][row * WIDTHS[table] + column] = value;
+    }
+
+    //Index of the string in the string table, NONE for null
+    private int string(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        if (sharingStrings) {
+            Integer index = stringIndexes.get(value);
+            if (index != null) {
+                return index;
+            }
+            stringIndexes.put(value, strings.size());
+        }
+        strings.add(value);
+        return strings.size() - 1;
+    }
+
+    //First row of the values added
+    private int values(Collection<String> values) {
+        int first = rowCounts[VALUE];
+        for (String value : values) {
+            row(VALUE, string(value));
+        }
+        return first;
+    }
+
+    //Row of the schema table of a schema of the spec, with its references resolved if they are
+    private int schema(String text) {
+        Integer row = schemaRows.get(text);
+        if (row == null) {
+            row = row(SCHEMA, string(resolveRefs(text)));
+            schemaRows.put(text, row);
+        }
+        return row;
+    }
+
+    private String resolveRefs(String schema) {
+        if (refResolver == null) {
+            return schema;
+        }
+        try {
+            return refResolver.resolve(JsonText.parse(schema)).toString();
+        } catch (JSONException e) {
+            //Invalid schemas are reported when they are converted
+            return schema;
+        }
+    }
+
+    //The API info, the base URI split into host and base path, and the schemes
+    private void document() {
+        int document = row(DOCUMENT);
+
+        if (!raml.getTitle().isEmpty()) {
+            set(DOCUMENT, document, DOCUMENT_TITLE, string(raml.getTitle()));
+        }
+        set(DOCUMENT, document, DOCUMENT_VERSION, string(raml.getVersion()));
+        if (raml.getDocumentation() != null) {
+            set(DOCUMENT, document, DOCUMENT_DESCRIPTION, string(raml.getDocumentation().stream()
+                    .map(i -> i.getTitle() + " - " + i.getContent()).collect(Collectors.joining(" | "))));
+        }
+
+        URL url = null;
+        try {
+            url = new URL(raml.getBaseUri());
+        } catch (MalformedURLException e) {
+            LOGGER.error("Error getting baseUri", e);
+        }
+
+        //Incase the schemes is mentioned in the RAML, use it. Else parse it from the API URL
+        List<String> schemes = null;
+        if (raml.getProtocols().size() > 0) {
+            schemes = raml.getProtocols().stream().map(p -> p.toString().toLowerCase()).collect(Collectors.toList());
+        } else if (url != null) {
+            schemes = Collections.singletonList(url.getProtocol());
+        }
+        if (schemes != null) {
+            set(DOCUMENT, document, DOCUMENT_SCHEMES, values(schemes));
+            set(DOCUMENT, document, DOCUMENT_SCHEME_COUNT, schemes.size());
+        }
+        if (url != null) {
+            set(DOCUMENT, document, DOCUMENT_HOST, string(url.getHost()));
+        }
+
+        String basePath = getBasePath();
+        if (basePath == null) {
+            basePath = "/";
+        }
+
+        /*
+           If base URI param is present, that part in the baseUri must be scrapped from the base uri and put
+           before all the resource paths.
+           Reason: Swagger doesn't allow path templating in its 'host' and 'basePath' fields. But RAML supports it.
+           So, this has to be done.
+         */
+        if (basePath.contains("{")) {
+            int index = basePath.indexOf("/{");
+            basePath = basePath.substring(0, index);
+
+            baseUriParamPresent = true;
+            indexBaseUriParam = index;
+        }
+        set(DOCUMENT, document, DOCUMENT_BASE_PATH, string(basePath));
+        set(DOCUMENT, document, DOCUMENT_PATH_PREFIX, string(baseUriParamPresent ? raml.getBasePath().substring(indexBaseUriParam) : ""));
+    }
+
+    //Get basePath from base URI
+    private String getBasePath() {
+        int start = raml.getBaseUri().indexOf("//") + 2;
+        start = raml.getBaseUri().indexOf("/", start);
+        return start < 0 ? null : raml.getBaseUri().substring(start);
+    }
+
+    private void definitions() {
+        for (Map<String, String> m : raml.getSchemas()) {
+            guard.checkpoint();
+            if (report.isStopped()) {
+                return;
+            }
+
+            Map.Entry<String, String> schema = m.entrySet().iterator().next();
+            row(DEFINITION, string(schema.getKey()), schema(schema.getValue()), 0);
+        }
+    }
+
+    //The schemas of the references which were not inlined, once all the references are resolved
+    private void referencedDefinitions() {
+        if (refResolver == null) {
+            return;
+        }
+        for (Map.Entry<String, JSONObject> entry : refResolver.getLifted().entrySet()) {
+            row(DEFINITION, string(entry.getKey()), row(SCHEMA, string(entry.getValue().toString())), 1);
+        }
+    }
+
+    //Add the resources recursively, with the URI parameters of their parents
+    private void paths(Map<String, Resource> resources, Map<String, UriParameter> uriParameters, int depth) {
+        guard.checkResourceDepth(depth);
+        for (Resource resource : resources.values()) {
+            guard.checkpoint();
+            if (report.isStopped()) {
+                return;
+            }
+
+            Map<String, UriParameter> parameters = new LinkedHashMap<>(uriParameters);
+            parameters.putAll(resource.getUriParameters());
+            if (baseUriParamPresent && raml.getBaseUriParameters() != null) {
+                parameters.putAll(raml.getBaseUriParameters());
+            }
+
+            //The event does not cover the sub-resources, they have their own
+            ConversionEvents.Resource event = ConversionEvents.resource();
+            int first = rowCounts[OPERATION];
+            int firstParameter = rowCounts[PARAMETER];
+            for (Map.Entry<ActionType, Action> action : resource.getActions().entrySet()) {
+                guard.checkpoint();
+                operation(resource, action.getKey(), action.getValue(), parameters);
+            }
+            row(PATH, string(resource.getUri()), first, rowCounts[OPERATION] - first);
+            event.end(resource.getUri(), rowCounts[OPERATION] - first, rowCounts[PARAMETER] - firstParameter);
+
+            //The sub-resources only get the URI parameters of this resource, not the ones of its siblings
+            if (resource.getResources().size() > 0) {
+                paths(resource.getResources(), parameters, depth + 1);
+            }
+        }
+    }
+
+    private void operation(Resource resource, ActionType method, Action action, Map<String, UriParameter> uriParameters) {
+        Set<String> consumes = new LinkedHashSet<>(action.getBody().keySet());
+        Set<String> produces = new LinkedHashSet<>();
+        for (Response response : action.getResponses().values()) {
+            produces.addAll(response.getBody().keySet());
+        }
+
+        int consumesFirst = values(consumes);
+        int producesFirst = values(produces);
+
+        //Header, query, body and path parameters, in this order
+        int parameters = rowCounts[PARAMETER];
+        parameters(action.getHeaders(), PARAMETER_HEADER);
+        parameters(action.getQueryParameters(), PARAMETER_QUERY);
+        for (Map.Entry<String, MimeType> body : action.getBody().entrySet()) {
+            int parameter = row(PARAMETER, PARAMETER_BODY, string("body"), NONE, FLAG_REQUIRED);
+            set(PARAMETER, parameter, PARAMETER_ENUM_COUNT, 0);
+            set(PARAMETER, parameter, PARAMETER_MIN_LENGTH, NO_NUMBER);
+            set(PARAMETER, parameter, PARAMETER_MAX_LENGTH, NO_NUMBER);
+            set(PARAMETER, parameter, PARAMETER_MEDIA_TYPE, string(body.getKey()));
+            schemaColumns(PARAMETER, parameter, PARAMETER_REFERENCE, PARAMETER_SCHEMA, body.getValue().getSchema());
+        }
+        parameters(uriParameters, PARAMETER_PATH);
+
+        int responses = rowCounts[RESPONSE];
+        for (Map.Entry<String, Response> response : action.getResponses().entrySet()) {
+            String description = response.getValue().getDescription() == null
+                    ? ResponseCodes.reasonPhrase(response.getKey()) : response.getValue().getDescription();
+
+            int bodies = rowCounts[BODY];
+            for (Map.Entry<String, MimeType> body : response.getValue().getBody().entrySet()) {
+                String example = body.getValue().getExample();
+                int row = row(BODY, string(body.getKey()), NONE, NONE, example == null || example.isEmpty() ? NONE : string(example));
+                schemaColumns(BODY, row, BODY_REFERENCE, BODY_SCHEMA, body.getValue().getSchema());
+            }
+            row(RESPONSE, string(response.getKey()), string(description), bodies, rowCounts[BODY] - bodies);
+        }
+
+        //The security of the action, with the one of its traits, else the one of its resource, else the one of the API
+        List<SecurityReference> securedBy = action.getSecuredBy();
+        if (securedBy.isEmpty()) {
+            securedBy = resource.getSecuredBy().isEmpty() ? raml.getSecuredBy() : resource.getSecuredBy();
+        }
+        int requirements = rowCounts[REQUIREMENT];
+        for (SecurityReference reference : securedBy) {
+            requirements(resource.getUri(), method, reference);
+        }
+
+        row(OPERATION, method.ordinal(), string(action.getDescription()), consumesFirst, consumes.size(), producesFirst,
+                produces.size(), parameters, rowCounts[PARAMETER] - parameters, responses, rowCounts[RESPONSE] - responses,
+                requirements, rowCounts[REQUIREMENT] - requirements);
+    }
+
+    //The requirements of a scheme referenced by an operation, one for every flow of an OAuth 2 scheme
+    private void requirements(String uri, ActionType method, SecurityReference reference) {
+        //A null scheme allows anonymous access
+        if (ANONYMOUS_SCHEME.equals(reference.getName())) {
+            row(REQUIREMENT, NONE, NONE, 0);
+            return;
+        }
+
+        List<Integer> rows = securityRows.get(reference.getName());
+        if (rows == null) {
+            report.warning(uri, method.toString(), null, "Security scheme '" + reference.getName() + "' has no security definition");
+            return;
+        }
+
+        //Scopes only apply to OAuth 2, the other schemes require none
+        List<String> scopes = reference.getParameters() == null ? null : reference.getParameters().get(SCOPES_PARAM_KEY);
+        if (scopes == null) {
+            scopes = Collections.emptyList();
+        }
+        for (int row : rows) {
+            boolean scoped = get(SECURITY, row, SECURITY_SCOPE_COUNT) != NONE;
+            int first = values(scoped ? scopes : Collections.emptyList());
+            row(REQUIREMENT, get(SECURITY, row, SECURITY_NAME), first, scoped ? scopes.size() : 0);
+        }
+    }
+
+    //A schema is either the name of a definition or a schema of its own
+    private void schemaColumns(int table, int row, int referenceColumn, int schemaColumn, String schema) {
+        if (schema == null || schema.isEmpty()) {
+            return;
+        }
+        if (definitionNames.contains(schema)) {
+            set(table, row, referenceColumn, string("#/definitions/" + schema));
+        } else {
+            set(table, row, schemaColumn, schema(schema));
+        }
+    }
+
+    private <T extends AbstractParam> void parameters(Map<String, T> parameters, int kind) {
+        for (Map.Entry<String, T> entry : parameters.entrySet()) {
+            T parameter = entry.getValue();
+            List<String> enumeration = parameter.getEnumeration() == null ? Collections.emptyList() : parameter.getEnumeration();
+            int first = values(enumeration);
+
+            row(PARAMETER, kind, string(entry.getKey()), parameter.getType() == null ? NONE : parameter.getType().ordinal(),
+                    (parameter.isRequired() ? FLAG_REQUIRED : 0) | (parameter.isRepeat() ? FLAG_REPEAT : 0),
+                    string(parameter.getDefaultValue()), string(parameter.getDescription()), string(parameter.getExample()),
+                    string(parameter.getPattern()), number(parameter.getMinimum()), number(parameter.getMaximum()),
+                    number(parameter.getMinLength()), number(parameter.getMaxLength()), first, enumeration.size());
+        }
+    }
+
+    private int number(BigDecimal value) {
+        return value == null ? NONE : string(value.toString());
+    }
+
+    private static int number(Integer value) {
+        return value == null ? NO_NUMBER : value;
+    }
+
+    //The security definitions, computed once for the operations to refer to. An OAuth 2 scheme with several grants gets
+    //one for every flow
+    @SuppressWarnings("unchecked")
+    private void securitySchemes() {
+        for (Map<String, SecurityScheme> m : raml.getSecuritySchemes()) {
+            for (Map.Entry<String, SecurityScheme> me : m.entrySet()) {
+                String type = SCHEME_TYPES.get(me.getValue().getType());
+
+                if (OAUTH2_RAML.equals(me.getValue().getType())) {
+                    //Get all te setting key value pairs
+                    Map<String, Object> map = new HashMap<>(me.getValue().getSettings());
+
+                    List<String> authGrants = (List<String>) map.get("authorizationGrants");
+                    for (String s : authGrants) {
+                        String key = "";
+                        String flow = null;
+                        String authorizationUrl = null;
+                        String tokenUrl = null;
+
+                        //Set the remaining value fields based on the grant type
+                        if (s.toLowerCase().equals(CODEFLOW_PARAM_KEY)) {
+                            key = me.getKey() + "_" + CODEFLOW_VALUE;
+                            authorizationUrl = StringUtils.substring(map.get("authorizationUri").toString(), 1, -1);
+                            tokenUrl = StringUtils.substring(map.get("accessTokenUri").toString(), 1, -1);
+                            flow = CODEFLOW_VALUE;
+                        } else if (s.toLowerCase().equals(TOKENFLOW_PARAM_KEY)) {
+                            key = me.getKey() + "_" + TOKENFLOW_VALUE;
+                            authorizationUrl = StringUtils.substring(map.get("authorizationUri").toString(), 1, -1);
+                            flow = TOKENFLOW_VALUE;
+                        } else if (s.toLowerCase().equals(OWNERFLOW_PARAM_KEY)) {
+                            key = me.getKey() + "_" + OWNERFLOW_VALUE;
+                            tokenUrl = StringUtils.substring(map.get("accessTokenUri").toString(), 1, -1);
+                            flow = OWNERFLOW_VALUE;
+                        } else if (s.toLowerCase().equals(CREDFLOW_PARAM_KEY)) {
+                            key = me.getKey() + "_" + CREDFLOW_VALUE;
+                            tokenUrl = StringUtils.substring(map.get("accessTokenUri").toString(), 1, -1);
+                            flow = CREDFLOW_VALUE;
+                        }
+
+                        key = authGrants.size() == 1 ? me.getKey() : key;
+                        List<String> scopes = (List<String>) map.get("scopes");
+                        int first = values(scopes);
+                        securityRows.computeIfAbsent(me.getKey(), name -> new ArrayList<>()).add(row(SECURITY, string(key),
+                                string(type), string(me.getValue().getDescription()), string(flow), string(authorizationUrl),
+                                string(tokenUrl), first, scopes.size()));
+                    }
+                } else if (BASICAUTH_RAML.equals(me.getValue().getType())) {
+                    securityRows.computeIfAbsent(me.getKey(), name -> new ArrayList<>())
+                            .add(row(SECURITY, string(me.getKey()), string(type), string(me.getValue().getDescription())));
+                }
+            }
+        }
+    }
+}
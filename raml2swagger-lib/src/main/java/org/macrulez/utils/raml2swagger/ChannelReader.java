@@ -0,0 +1,120 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Readers decoding a file straight from its channel, with an explicit charset.
+ * <p>
+ * Large files are memory-mapped and decoded from the mapping into the parser's own buffer, so their content is never
+ * copied into an intermediate byte array. Malformed input is reported as an error instead of being replaced.
+ */
+final class ChannelReader {
+    //Files from this size on are memory-mapped, below it mapping costs more than it saves
+    static final long MAP_THRESHOLD = 1 << 20;
+
+    private ChannelReader() {
+    }
+
+    //Reader over the channel from its current position to its end, closing the reader closes the channel
+    static Reader open(FileChannel channel, Charset charset) throws IOException {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+
+        long size = channel.size() - channel.position();
+        if (size < MAP_THRESHOLD || size > Integer.MAX_VALUE) {
+            return Channels.newReader(channel, decoder, -1);
+        }
+        return new MappedReader(channel, channel.map(FileChannel.MapMode.READ_ONLY, channel.position(), size), decoder);
+    }
+
+    //Decodes a mapped buffer directly into the arrays it is read into
+    private static class MappedReader extends Reader {
+        private final FileChannel channel;
+        private final ByteBuffer input;
+        private final CharsetDecoder decoder;
+        private boolean decoded;
+        private boolean flushed;
+
+        //Low surrogate left over from a single char read
+        private final char[] pair = new char[2];
+        private boolean pending;
+
+        MappedReader(FileChannel channel, ByteBuffer input, CharsetDecoder decoder) {
+            this.channel = channel;
+            this.input = input;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (pending) {
+                pending = false;
+                cbuf[off] = pair[1];
+                return 1;
+            }
+            if (len == 1) {
+                //A surrogate pair does not fit in a single char, so it is split here
+                int read = read(pair, 0, 2);
+                if (read > 0) {
+                    cbuf[off] = pair[0];
+                    pending = read == 2;
+                }
+                return Math.min(read, 1);
+            }
+
+            CharBuffer output = CharBuffer.wrap(cbuf, off, len);
+            if (!decoded) {
+                CoderResult result = decoder.decode(input, output, true);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                decoded = result.isUnderflow();
+            }
+            if (decoded && !flushed) {
+                flushed = decoder.flush(output).isUnderflow();
+            }
+
+            int read = output.position() - off;
+            return read == 0 && flushed ? -1 : read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            //The mapping itself is released by the garbage collector
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+/**
+ * What happens when two specs being merged define the same path, definition or security definition differently.
+ * Entries which are exactly the same in both specs are never a conflict.
+ */
+enum ConflictPolicy {
+    //Keep both, the entry of the later spec is renamed after the spec and the references to it are rewritten
+    PREFIX,
+
+    //Report an error and write no output
+    FAIL,
+
+    //The entry of the later spec replaces the earlier one, a warning is reported
+    LAST_WINS
+}
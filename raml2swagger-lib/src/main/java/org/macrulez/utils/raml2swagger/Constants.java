@@ -31,6 +31,7 @@ interface Constants {
     String API_VERSION_PARAM_KEY = "version";
     String API_DEFINITION_PARAM_KEY = "definitions";
     String SECDEF_PARAM_KEY = "securityDefinitions";
+    String SECURITY_PARAM_KEY = "security";
 
     String PATHSVARIABLE_PARAM_KEY = "paths";
     String SCHEMES_PARAM_KEY = "schemes";
@@ -54,6 +55,7 @@ interface Constants {
     String DEFAULTVALUE_PARAM_KEY = "default";
     String REQUIRED_PARAM_KEY = "required";
     String PARAMTYPE_PARAM_KEY = "in";
+    String EXAMPLE_PARAM_KEY = "x-example";
 
     String PARAMTYPE_PATH = "path";
     String PARAMTYPE_HEADER = "header";
@@ -107,4 +109,7 @@ interface Constants {
     String BASICAUTH_SWGR = "basic";
     String OAUTH2_SWGR = "oauth2";
 
+    //Name of the scheme of anonymous access in securedBy
+    String ANONYMOUS_SCHEME = "null";
+
 }
@@ -0,0 +1,94 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+/**
+ * Starts the flight recorder events of a conversion. A JVM without the flight recorder, like Java 8 before update 262
+ * or OpenJ9, gets events which do nothing, so the event classes are only loaded where <code>jdk.jfr</code> exists.
+ */
+final class ConversionEvents {
+    //Whether the JVM has the flight recorder, checked once
+    private static final boolean RECORDING = isAvailable();
+
+    private static final NoEvent NONE = new NoEvent();
+
+    private ConversionEvents() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, ConversionEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static Phase phase(String phase) {
+        if (RECORDING) {
+            return PhaseEvent.start(phase);
+        }
+        return NONE;
+    }
+
+    static Schema schema() {
+        if (RECORDING) {
+            return SchemaEvent.start();
+        }
+        return NONE;
+    }
+
+    static Resource resource() {
+        if (RECORDING) {
+            return ResourceEvent.start();
+        }
+        return NONE;
+    }
+
+    //A phase of a conversion, ended with the title of the RAML document if it is known
+    interface Phase {
+        void end(String title);
+    }
+
+    //The parsing of a schema, ended with its name and the length of its text
+    interface Schema {
+        void end(String name, long size);
+    }
+
+    //The building of the model of a resource, ended with its URI and the number of its actions and parameters
+    interface Resource {
+        void end(String uri, int actions, int parameters);
+    }
+
+    private static final class NoEvent implements Phase, Schema, Resource {
+        @Override
+        public void end(String title) {
+        }
+
+        @Override
+        public void end(String name, long size) {
+        }
+
+        @Override
+        public void end(String uri, int actions, int parameters) {
+        }
+    }
+}
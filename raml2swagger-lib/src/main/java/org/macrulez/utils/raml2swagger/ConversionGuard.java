@@ -0,0 +1,250 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.apache.commons.io.IOUtils;
+import org.raml.parser.loader.ResourceLoader;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.events.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Enforces the limits of one conversion and its cancellation. The converter calls {@link #checkpoint()} as it walks
+ * the model, and the input and the includes are read through the guard, so that the parser is stopped as well.
+ */
+final class ConversionGuard {
+    //Nesting of the YAML below the deepest resource allowed: its actions, their responses, bodies and parameters
+    static final int ACTION_NESTING = 32;
+
+    private final ConversionLimits limits;
+    private final BooleanSupplier cancelled;
+    private final long deadline;
+
+    //Includes may be fetched concurrently
+    private final AtomicLong inputSize = new AtomicLong();
+    private final AtomicInteger includes = new AtomicInteger();
+
+    ConversionGuard(ConversionLimits limits, BooleanSupplier cancelled) {
+        this.limits = limits;
+        this.cancelled = cancelled;
+        this.deadline = limits.getTimeout() == null ? Long.MAX_VALUE : System.nanoTime() + limits.getTimeout().toNanos();
+    }
+
+    //Stop the conversion if it was cancelled or ran out of time
+    void checkpoint() {
+        //An asynchronous conversion is also done once it timed out, which is the reason to report
+        if (System.nanoTime() - deadline > 0) {
+            throw new ConversionLimitException("Conversion took longer than " + limits.getTimeout());
+        }
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Conversion cancelled");
+        }
+    }
+
+    void checkResourceDepth(int depth) {
+        if (limits.getMaxResourceDepth() > 0 && depth > limits.getMaxResourceDepth()) {
+            throw new ConversionLimitException("Resources are nested deeper than " + limits.getMaxResourceDepth() + " levels");
+        }
+    }
+
+    void checkOutput(String output) {
+        if (limits.getMaxOutputSize() > 0 && utf8Length(output) > limits.getMaxOutputSize()) {
+            throw new ConversionLimitException("Output is larger than " + limits.getMaxOutputSize() + " bytes");
+        }
+    }
+
+    private void addInput(long size) {
+        long total = inputSize.addAndGet(size);
+        if (limits.getMaxInputSize() > 0 && total > limits.getMaxInputSize()) {
+            throw new ConversionLimitException("Input is larger than " + limits.getMaxInputSize());
+        }
+    }
+
+    //The spec, counted as it is read. If YAML nodes or the depth are limited, it is read and checked up front
+    Reader reader(Reader input) throws IOException {
+        Reader reader = new FilterReader(input) {
+            @Override
+            public int read() throws IOException {
+                checkpoint();
+                int c = super.read();
+                if (c >= 0) {
+                    addInput(1);
+                }
+                return c;
+            }
+
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                checkpoint();
+                int read = super.read(cbuf, off, len);
+                if (read > 0) {
+                    addInput(read);
+                }
+                return read;
+            }
+        };
+
+        if (!isCheckingYaml()) {
+            return reader;
+        }
+
+        String content = IOUtils.toString(reader);
+        checkYaml(new StringReader(content), "the spec");
+        return new StringReader(content);
+    }
+
+    //Loader counting the includes and their size, and checking the YAML ones
+    ResourceLoader loader(ResourceLoader loader) {
+        return resourceName -> {
+            checkpoint();
+            if (limits.getMaxIncludes() > 0 && includes.incrementAndGet() > limits.getMaxIncludes()) {
+                throw new ConversionLimitException("More than " + limits.getMaxIncludes() + " includes");
+            }
+
+            InputStream input = loader.fetchResource(resourceName);
+            if (input == null) {
+                return null;
+            }
+
+            byte[] content;
+            try (InputStream in = input) {
+                content = IOUtils.toByteArray(in);
+            } catch (IOException e) {
+                return null;
+            }
+            addInput(content.length);
+
+            if (isCheckingYaml() && isYaml(resourceName)) {
+                checkYaml(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8), resourceName);
+            }
+            return new ByteArrayInputStream(content);
+        };
+    }
+
+    //The YAML is scanned before it is parsed, as the parser builds it recursively and a deep document overflows its stack
+    private boolean isCheckingYaml() {
+        return limits.getMaxYamlNodes() > 0 || limits.getMaxResourceDepth() > 0;
+    }
+
+    private static boolean isYaml(String resourceName) {
+        String name = resourceName.toLowerCase();
+        return name.endsWith(".raml") || name.endsWith(".yaml") || name.endsWith(".yml");
+    }
+
+    /*
+       Count the nodes of a YAML document as if its aliases were expanded, from the event stream, so in linear time
+       and without building the document. Every collection knows its size when it ends, which is the size an alias
+       to its anchor adds. The nesting is checked on the way, a resource being one level below its parent.
+     */
+    private void checkYaml(Reader input, String name) {
+        int maxDepth = limits.getMaxResourceDepth() > 0 ? limits.getMaxResourceDepth() + 1 + ACTION_NESTING : 0;
+        Map<String, Long> anchors = new HashMap<>();
+        Deque<Collection> open = new ArrayDeque<>();
+        long total = 0;
+
+        for (Event event : new Yaml().parse(input)) {
+            long size;
+            if (event instanceof ScalarEvent) {
+                size = 1;
+                putAnchor(anchors, ((ScalarEvent) event).getAnchor(), size);
+            } else if (event instanceof AliasEvent) {
+                size = anchors.getOrDefault(((AliasEvent) event).getAnchor(), 1L);
+            } else if (event instanceof CollectionStartEvent) {
+                checkpoint();
+                open.push(new Collection(((CollectionStartEvent) event).getAnchor()));
+                if (maxDepth > 0 && open.size() > maxDepth) {
+                    throw new ConversionLimitException("YAML of " + name + " is nested deeper than " + maxDepth + " levels");
+                }
+                continue;
+            } else if (event instanceof CollectionEndEvent) {
+                Collection collection = open.pop();
+                size = collection.size;
+                putAnchor(anchors, collection.anchor, size);
+            } else {
+                continue;
+            }
+
+            if (open.isEmpty()) {
+                total = add(total, size, name);
+            } else {
+                open.peek().size = add(open.peek().size, size, name);
+            }
+        }
+    }
+
+    //A sequence or a mapping being read
+    private static class Collection {
+        private final String anchor;
+        private long size = 1;
+
+        Collection(String anchor) {
+            this.anchor = anchor;
+        }
+    }
+
+    private static void putAnchor(Map<String, Long> anchors, String anchor, long size) {
+        if (anchor != null) {
+            anchors.put(anchor, size);
+        }
+    }
+
+    private long add(long count, long size, String name) {
+        long sum = count + size;
+        if (limits.getMaxYamlNodes() > 0 && sum > limits.getMaxYamlNodes()) {
+            throw new ConversionLimitException("YAML of " + name + " has more than " + limits.getMaxYamlNodes() + " nodes with its aliases expanded");
+        }
+        return sum;
+    }
+
+    private static long utf8Length(String s) {
+        long length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * Bounds of a single conversion, so that a hostile or broken spec can not take a worker over. Zero or null means
+ * unlimited. Exceeding a limit fails the conversion with a {@link ConversionLimitException}.
+ */
+@Value
+@Builder
+class ConversionLimits {
+    static final ConversionLimits NONE = builder().build();
+
+    //Characters of the spec plus bytes of its includes
+    long maxInputSize;
+
+    //Includes fetched, an include fetched twice counts twice
+    int maxIncludes;
+
+    //Nesting of the resources, and of their YAML before it is parsed
+    int maxResourceDepth;
+
+    //Nodes of a YAML document with its aliases expanded, which catches alias bombs before the parser expands them
+    long maxYamlNodes;
+
+    //Bytes of the serialized output in UTF-8
+    long maxOutputSize;
+
+    //Wall-clock time of the conversion
+    Duration timeout;
+}
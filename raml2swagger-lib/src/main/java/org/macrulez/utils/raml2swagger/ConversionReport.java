@@ -0,0 +1,103 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Diagnostics collected during one conversion. Both the validation stage and the conversion write into it
+ * concurrently, a problem found by both of them is kept once. In fail-fast mode the first error stops both of them.
+ */
+class ConversionReport {
+    @Getter
+    private final ValidationMode mode;
+    private final ConcurrentLinkedQueue<Diagnostic> diagnostics = new ConcurrentLinkedQueue<>();
+    private final Set<List<Object>> reported = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopped;
+
+    ConversionReport(ValidationMode mode) {
+        this.mode = mode;
+    }
+
+    void error(String resource, String action, String schema, String message, Throwable cause) {
+        add(new Diagnostic(Diagnostic.Severity.ERROR, resource, action, schema, message, cause));
+    }
+
+    void warning(String resource, String action, String schema, String message) {
+        add(new Diagnostic(Diagnostic.Severity.WARNING, resource, action, schema, message, null));
+    }
+
+    void add(Diagnostic diagnostic) {
+        //The same problem with its own exception
+        if (!reported.add(Arrays.asList(diagnostic.getSeverity(), diagnostic.getResource(), diagnostic.getAction(),
+                diagnostic.getSchema(), diagnostic.getMessage()))) {
+            return;
+        }
+        diagnostics.add(diagnostic);
+        if (diagnostic.getSeverity() == Diagnostic.Severity.ERROR && mode == ValidationMode.FAIL_FAST) {
+            stopped = true;
+        }
+    }
+
+    //Make the conversion and the validation give up
+    void stop() {
+        stopped = true;
+    }
+
+    //Whether the conversion and the validation should give up
+    boolean isStopped() {
+        return stopped;
+    }
+
+    boolean hasErrors() {
+        return diagnostics.stream().anyMatch(d -> d.getSeverity() == Diagnostic.Severity.ERROR);
+    }
+
+    List<Diagnostic> getDiagnostics() {
+        return new ArrayList<>(diagnostics);
+    }
+
+    List<Diagnostic> getErrors() {
+        List<Diagnostic> errors = new ArrayList<>();
+        for (Diagnostic diagnostic : diagnostics) {
+            if (diagnostic.getSeverity() == Diagnostic.Severity.ERROR) {
+                errors.add(diagnostic);
+            }
+        }
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Diagnostic diagnostic : diagnostics) {
+            sb.append(diagnostic).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,38 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * Built-in stage giving an operation without responses a "200 OK" one, Swagger requires at least one.
+ */
+final class DefaultResponseStage implements TransformationStage, Constants {
+
+    @Override
+    public JSONObject operation(String path, String method, JSONObject operation, TransformationContext context) throws JSONException {
+        if (!operation.has(RESPONSES_PARAM_KEY)) {
+            operation.put(RESPONSES_PARAM_KEY, new JSONObject().put("200", new JSONObject().put(DESCRIPTION_PARAM_KEY, "OK")));
+        }
+        return operation;
+    }
+}
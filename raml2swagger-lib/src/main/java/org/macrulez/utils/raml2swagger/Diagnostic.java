@@ -0,0 +1,60 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.Value;
+
+/**
+ * A single problem found while validating or converting a RAML spec. Fields not relevant to the problem are null.
+ */
+@Value
+class Diagnostic {
+    enum Severity {
+        WARNING,
+        ERROR
+    }
+
+    Severity severity;
+    String resource;
+    String action;
+    String schema;
+    String message;
+    Throwable cause;
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(severity.name());
+        if (resource != null) {
+            sb.append(' ').append(resource);
+        }
+        if (action != null) {
+            sb.append(' ').append(action);
+        }
+        if (schema != null) {
+            sb.append(" [").append(schema).append(']');
+        }
+        sb.append(": ").append(message);
+        if (cause != null && cause.getMessage() != null && !cause.getMessage().equals(message)) {
+            sb.append(" (").append(cause.getMessage()).append(')');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.raml.parser.loader.ResourceLoader;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches every <code>!include</code> of a spec concurrently before it is parsed, since the parser resolves them one
+ * at a time and blocks on each fetch.
+ * <p>
+ * The includes are found by scanning the YAML events for the include tag, and the YAML includes are scanned as they
+ * arrive, the same way the parser resolves them: by the name as written, with no relative resolution. The parser then
+ * reads them from memory, anything the scan missed is still fetched through the original loader.
+ */
+@Slf4j
+final class IncludePrefetcher {
+    private static final String INCLUDE_TAG = "!include";
+
+    private final ResourceLoader loader;
+    private final Executor executor;
+
+    //Content of every include fetched, null if the loader did not find it
+    private final Map<String, CompletableFuture<byte[]>> fetched = new ConcurrentHashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    IncludePrefetcher(ResourceLoader loader, Executor executor) {
+        this.loader = loader;
+        this.executor = executor;
+    }
+
+    //Fetch the includes of the spec and of its YAML includes, and return the loader serving them from memory
+    ResourceLoader prefetch(String spec) {
+        pending.incrementAndGet();
+        fetchAll(includes(new StringReader(spec)));
+        finish();
+
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            //Exceeding a limit or a cancellation stops the conversion, other failures are left to the parser
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+        LOGGER.debug("Prefetched {} includes", fetched.size());
+
+        return resourceName -> {
+            CompletableFuture<byte[]> content = fetched.get(resourceName);
+            if (content == null) {
+                return loader.fetchResource(resourceName);
+            }
+            byte[] bytes = content.join();
+            return bytes == null ? null : new ByteArrayInputStream(bytes);
+        };
+    }
+
+    private void fetchAll(Set<String> names) {
+        for (String name : names) {
+            CompletableFuture<byte[]> content = new CompletableFuture<>();
+            if (fetched.putIfAbsent(name, content) == null) {
+                pending.incrementAndGet();
+                try {
+                    executor.execute(() -> fetch(name, content));
+                } catch (RejectedExecutionException e) {
+                    //A saturated or shut down executor must not leave the include pending, fetch it on this thread
+                    LOGGER.debug("Prefetching {} on the calling thread", name, e);
+                    fetch(name, content);
+                }
+            }
+        }
+    }
+
+    private void fetch(String name, CompletableFuture<byte[]> content) {
+        byte[] bytes;
+        try {
+            bytes = read(name);
+        } catch (RuntimeException e) {
+            content.completeExceptionally(e);
+            done.completeExceptionally(e);
+            return;
+        }
+
+        content.complete(bytes);
+        if (bytes != null && isYaml(name)) {
+            fetchAll(includes(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)));
+        }
+        finish();
+    }
+
+    private void finish() {
+        if (pending.decrementAndGet() == 0) {
+            done.complete(null);
+        }
+    }
+
+    private byte[] read(String name) {
+        InputStream input = loader.fetchResource(name);
+        if (input == null) {
+            return null;
+        }
+        try (InputStream in = input) {
+            return IOUtils.toByteArray(in);
+        } catch (IOException e) {
+            LOGGER.debug("Error prefetching {}", name, e);
+            return null;
+        }
+    }
+
+    //The parser only composes the includes with these extensions as YAML, the others are text
+    private static boolean isYaml(String name) {
+        return name.endsWith(".raml") || name.endsWith(".yaml") || name.endsWith(".yml");
+    }
+
+    //Targets of the include tags of a YAML document, in document order
+    private static Set<String> includes(Reader input) {
+        Set<String> names = new LinkedHashSet<>();
+        try {
+            for (Event event : new Yaml().parse(input)) {
+                if (event instanceof ScalarEvent && INCLUDE_TAG.equals(((ScalarEvent) event).getTag())) {
+                    names.add(((ScalarEvent) event).getValue());
+                }
+            }
+        } catch (YAMLException e) {
+            //The parser reports the error, the includes found so far are still fetched
+            LOGGER.debug("Error scanning for includes", e);
+        }
+        return names;
+    }
+}
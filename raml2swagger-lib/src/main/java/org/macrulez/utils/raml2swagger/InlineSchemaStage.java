@@ -0,0 +1,39 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * Built-in stage removing the keys of an inline schema which Swagger does not accept there.
+ */
+final class InlineSchemaStage implements TransformationStage {
+    //Top level keys removed, a raw schema without them is spliced into the output unchanged
+    static final String[] REMOVED_KEYS = {"$schema", "required"};
+
+    @Override
+    public JSONObject inlineSchema(JSONObject schema, TransformationContext context) {
+        for (String key : REMOVED_KEYS) {
+            schema.remove(key);
+        }
+        return schema;
+    }
+}
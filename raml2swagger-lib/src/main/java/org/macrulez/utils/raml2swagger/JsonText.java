@@ -0,0 +1,79 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.codehaus.jettison.json.JSONTokener;
+
+/**
+ * Parsing of the JSON texts of a spec. Jettison parses and writes its trees recursively, so the nesting is counted
+ * while the text is parsed, and a deeply nested schema fails as an invalid one instead of overflowing the stack.
+ */
+final class JsonText {
+    //Deepest nesting of objects and arrays parsed into a tree, far beyond the schemas written by hand
+    static final int MAX_NESTING = 512;
+
+    private JsonText() {
+    }
+
+    //The object of the text, if it is not nested too deep
+    static JSONObject parse(String text) throws JSONException {
+        return new JSONObject(new NestingTokener(text));
+    }
+
+    //Counts the objects and arrays being parsed, the tokener creates every nested one
+    private static final class NestingTokener extends JSONTokener {
+        //The outermost object is created by the caller
+        private int depth = 1;
+
+        NestingTokener(String text) {
+            super(text);
+        }
+
+        @Override
+        protected JSONObject newJSONObject() throws JSONException {
+            enter();
+            try {
+                return super.newJSONObject();
+            } finally {
+                depth--;
+            }
+        }
+
+        @Override
+        protected JSONArray newJSONArray() throws JSONException {
+            enter();
+            try {
+                return super.newJSONArray();
+            } finally {
+                depth--;
+            }
+        }
+
+        private void enter() throws JSONException {
+            if (++depth > MAX_NESTING) {
+                throw new JSONException("JSON is nested deeper than " + MAX_NESTING + " levels");
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+/**
+ * Tables and columns of the {@link ApiModel}.
+ */
+interface ModelLayout {
+    //No string or no row
+    int NONE = -1;
+
+    //No number, for the optional integers
+    int NO_NUMBER = Integer.MIN_VALUE;
+
+    //Tables
+    int DOCUMENT = 0;
+    int VALUE = 1;
+    int SCHEMA = 2;
+    int DEFINITION = 3;
+    int SECURITY = 4;
+    int PATH = 5;
+    int OPERATION = 6;
+    int PARAMETER = 7;
+    int RESPONSE = 8;
+    int BODY = 9;
+    int REQUIREMENT = 10;
+
+    //Ints of the rows of every table
+    int[] WIDTHS = {8, 1, 1, 3, 8, 3, 12, 17, 4, 4, 3};
+
+    //Columns of the single document row. Without schemes the count is NONE
+    int DOCUMENT_TITLE = 0, DOCUMENT_VERSION = 1, DOCUMENT_DESCRIPTION = 2, DOCUMENT_HOST = 3,
+            DOCUMENT_BASE_PATH = 4, DOCUMENT_PATH_PREFIX = 5, DOCUMENT_SCHEMES = 6, DOCUMENT_SCHEME_COUNT = 7;
+
+    //A string of a list
+    int VALUE_STRING = 0;
+
+    //Text of a schema, as written in the spec or with its references resolved
+    int SCHEMA_TEXT = 0;
+
+    //A named schema, referenced ones are not part of the spec but the target of a reference of its schemas
+    int DEFINITION_NAME = 0, DEFINITION_SCHEMA = 1, DEFINITION_REFERENCED = 2;
+
+    //A security definition. Without a scopes object the count is NONE
+    int SECURITY_NAME = 0, SECURITY_TYPE = 1, SECURITY_DESCRIPTION = 2, SECURITY_FLOW = 3,
+            SECURITY_AUTHORIZATION_URL = 4, SECURITY_TOKEN_URL = 5, SECURITY_SCOPES = 6, SECURITY_SCOPE_COUNT = 7;
+
+    //A resource and its range of operations
+    int PATH_URI = 0, PATH_OPERATIONS = 1, PATH_OPERATION_COUNT = 2;
+
+    //An operation, the method is the ordinal of its ActionType. The media types are ranges of values, the security is
+    //a range of requirements, any one of which grants access
+    int OPERATION_METHOD = 0, OPERATION_DESCRIPTION = 1, OPERATION_CONSUMES = 2, OPERATION_CONSUMES_COUNT = 3,
+            OPERATION_PRODUCES = 4, OPERATION_PRODUCES_COUNT = 5, OPERATION_PARAMETERS = 6, OPERATION_PARAMETER_COUNT = 7,
+            OPERATION_RESPONSES = 8, OPERATION_RESPONSE_COUNT = 9, OPERATION_SECURITY = 10, OPERATION_SECURITY_COUNT = 11;
+
+    //A parameter of an operation: the kind is one of the PARAMETER_ codes, the type the ordinal of its ParamType.
+    //The numbers are strings, so they are written as they are in the spec. The schema of a body is either a
+    //reference to a definition or a row of the schema table
+    int PARAMETER_KIND = 0, PARAMETER_NAME = 1, PARAMETER_TYPE = 2, PARAMETER_FLAGS = 3,
+            PARAMETER_DEFAULT = 4, PARAMETER_DESCRIPTION = 5, PARAMETER_EXAMPLE = 6, PARAMETER_PATTERN = 7,
+            PARAMETER_MINIMUM = 8, PARAMETER_MAXIMUM = 9, PARAMETER_MIN_LENGTH = 10, PARAMETER_MAX_LENGTH = 11,
+            PARAMETER_ENUM = 12, PARAMETER_ENUM_COUNT = 13, PARAMETER_MEDIA_TYPE = 14, PARAMETER_REFERENCE = 15,
+            PARAMETER_SCHEMA = 16;
+
+    //Kinds of parameters
+    int PARAMETER_HEADER = 0, PARAMETER_QUERY = 1, PARAMETER_BODY = 2, PARAMETER_PATH = 3;
+
+    //Flags of a parameter
+    int FLAG_REQUIRED = 1, FLAG_REPEAT = 2;
+
+    //A response of an operation, the description is the default one of the code if the spec has none
+    int RESPONSE_CODE = 0, RESPONSE_DESCRIPTION = 1, RESPONSE_BODIES = 2, RESPONSE_BODY_COUNT = 3;
+
+    //A body of a response, with its schema like the one of a body parameter
+    int BODY_MEDIA_TYPE = 0, BODY_REFERENCE = 1, BODY_SCHEMA = 2, BODY_EXAMPLE = 3;
+
+    //A security requirement of an operation: the name of a security definition and its scopes, a range of values.
+    //Without a name it is the anonymous access
+    int REQUIREMENT_NAME = 0, REQUIREMENT_SCOPES = 1, REQUIREMENT_SCOPE_COUNT = 2;
+}
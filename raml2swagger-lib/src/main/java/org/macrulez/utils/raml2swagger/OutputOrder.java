@@ -0,0 +1,81 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.codehaus.jettison.json.JSONTokener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Order of the keys of the objects in the output. Either way the same spec is always converted to the same bytes, so
+ * unchanged outputs can be recognized by their content.
+ */
+enum OutputOrder {
+    //The order of the spec: paths, definitions and parameters as declared, schemas as they are included
+    SOURCE,
+
+    //Every key sorted, including the ones of the schemas, so reordering the declarations does not change the output
+    SORTED;
+
+    //The tree in this order, the tree itself if it is already in it
+    JSONObject apply(JSONObject json) throws JSONException {
+        return this == SORTED ? (JSONObject) sorted(json) : json;
+    }
+
+    private static Object sorted(Object value) throws JSONException {
+        if (value instanceof RawJson) {
+            //Raw schemas are only sorted as trees
+            value = new JSONTokener(((RawJson) value).toJSONString()).nextValue();
+        }
+
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            List<String> keys = new ArrayList<>(object.length());
+            for (Iterator<?> iterator = object.keys(); iterator.hasNext(); ) {
+                keys.add(iterator.next().toString());
+            }
+            Collections.sort(keys);
+
+            //Jettison keeps the keys in the order they are put
+            JSONObject sorted = new JSONObject();
+            for (String key : keys) {
+                sorted.put(key, sorted(object.get(key)));
+            }
+            return sorted;
+        }
+
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            JSONArray sorted = new JSONArray();
+            for (int i = 0; i < array.length(); i++) {
+                sorted.put(sorted(array.get(i)));
+            }
+            return sorted;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * Built-in stage putting the templated part of the base URI before every path.
+ * <p>
+ * Swagger doesn't allow path templating in its 'host' and 'basePath' fields, but RAML supports it in the base URI.
+ * So that part is scrapped from the base path and moved into the paths, with its parameters.
+ */
+final class PathPrefixStage implements TransformationStage {
+
+    @Override
+    public String path(String path, JSONObject operations, TransformationContext context) {
+        return context.getPathPrefix().isEmpty() ? path : context.getPathPrefix() + path;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of a phase of a conversion.
+ */
+@Name("org.macrulez.raml2swagger.Phase")
+@Label("Conversion Phase")
+@Category({"RAML to Swagger"})
+@StackTrace(false)
+class PhaseEvent extends Event implements ConversionEvents.Phase {
+    @Label("Phase")
+    String phase;
+
+    //Title of the RAML document, if it was parsed already
+    @Label("Title")
+    String title;
+
+    static PhaseEvent start(String phase) {
+        PhaseEvent event = new PhaseEvent();
+        event.phase = phase;
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void end(String title) {
+        if (shouldCommit()) {
+            this.title = title;
+            commit();
+        }
+    }
+}
@@ -20,333 +20,464 @@
 
 package org.macrulez.utils.raml2swagger;
 
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang.StringUtils;
+import org.apache.commons.io.IOUtils;
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
-import org.raml.model.*;
-import org.raml.model.parameter.AbstractParam;
-import org.raml.model.parameter.UriParameter;
+import org.raml.model.ActionType;
+import org.raml.model.ParamType;
+import org.raml.model.Raml;
+import org.raml.parser.loader.CompositeResourceLoader;
+import org.raml.parser.loader.DefaultResourceLoader;
+import org.raml.parser.loader.FileResourceLoader;
 import org.raml.parser.loader.ResourceLoader;
+import org.raml.parser.loader.UrlResourceLoader;
 import org.raml.parser.visitor.RamlDocumentBuilder;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.net.MalformedURLException;
-import java.net.URL;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.concurrent.*;
 
 /**
  * Note: Supports only RAML 0.8 conversion to Swagger 2.0
+ * <p>
+ * The RAML is parsed and built into an {@link ApiModel} first, the output is written from the model. A model can also
+ * be kept, or written as a snapshot and mapped back, and converted again without the RAML.
  */
 
 @Slf4j
-class RAMLtoSwagger implements Constants {
+class RAMLtoSwagger implements Constants, ModelLayout {
+
+    //Lowercase names of the action and parameter types, computed once instead of for every operation
+    private static final Map<ActionType, String> ACTION_NAMES = lowercaseNames(ActionType.class);
+    private static final Map<ParamType, String> TYPE_NAMES = lowercaseNames(ParamType.class);
+
+    //Action and parameter types by the codes of the model
+    private static final ActionType[] ACTION_TYPES = ActionType.values();
+    private static final ParamType[] PARAM_TYPES = ParamType.values();
+
+    //Location of the parameters by their kind in the model
+    private static final String[] PARAMETER_KINDS = {PARAMTYPE_HEADER, PARAMTYPE_QUERY, PARAMTYPE_BODY, PARAMTYPE_PATH};
 
-    private HashMap<Integer, String> respCodeMap = new HashMap<>();
     private JSONObject swaggerJSON;
     private Raml raml;
-    private List<String> schemasList = new ArrayList<>();
-    private Boolean baseUriParamPresent = false;
-    private Integer indexBaseUriParam;
-
-    private void initializeRespCodes() {
-        respCodeMap.put(100, "Continue");
-        respCodeMap.put(101, "Switching Protocols");
-        respCodeMap.put(103, "Checkpoint");
-        respCodeMap.put(200, "OK");
-        respCodeMap.put(201, "Created");
-        respCodeMap.put(202, "Accepted");
-        respCodeMap.put(203, "Non-Authoritative Information");
-        respCodeMap.put(204, "No Content");
-        respCodeMap.put(205, "Reset Content");
-        respCodeMap.put(206, "Partial Content");
-        respCodeMap.put(300, "Multiple Choices");
-        respCodeMap.put(301, "Moved Permanently");
-        respCodeMap.put(302, "Found");
-        respCodeMap.put(303, "See Other");
-        respCodeMap.put(304, "Not Modified");
-        respCodeMap.put(306, "Switch Proxy");
-        respCodeMap.put(307, "Temporary Redirect");
-        respCodeMap.put(308, "Resume Incomplete");
-        respCodeMap.put(400, "Bad Request");
-        respCodeMap.put(401, "Unauthorized");
-        respCodeMap.put(402, "Payment Required");
-        respCodeMap.put(403, "Forbidden");
-        respCodeMap.put(404, "Not Found");
-        respCodeMap.put(405, "Method Not Allowed");
-        respCodeMap.put(406, "Not Acceptable");
-        respCodeMap.put(407, "Proxy Authentication Required");
-        respCodeMap.put(408, "Request Timeout");
-        respCodeMap.put(409, "Conflict");
-        respCodeMap.put(410, "Gone");
-        respCodeMap.put(411, "Length Required");
-        respCodeMap.put(412, "Precondition Failed");
-        respCodeMap.put(413, "Request Entity Too Large");
-        respCodeMap.put(414, "Request-URI Too Long");
-        respCodeMap.put(415, "Unsupported Media Type");
-        respCodeMap.put(416, "Requested Range Not Satisfiable");
-        respCodeMap.put(417, "Expectation Failed");
-        respCodeMap.put(500, "Internal Server Error");
-        respCodeMap.put(501, "Not Implemented");
-        respCodeMap.put(502, "Bad Gateway");
-        respCodeMap.put(503, "Service Unavailable");
-        respCodeMap.put(504, "Gateway Timeout");
-        respCodeMap.put(505, "HTTP Version Not Supported");
-        respCodeMap.put(511, "Network Authentication Required");
-    }
-
-    RAMLtoSwagger() {
-        initializeRespCodes();
-    }
-
-    //Return the response for a response code
-    private String getResponseMessage(int code) {
-        return respCodeMap.get(code);
-    }
+    private ApiModel model;
 
-    //Put the swagger version
-    private void putSwaggerHeader() throws JSONException {
-        swaggerJSON.put(SWAGGERVERSION_PARAM_KEY, SWAGGERVERSION_PARAM_VALUE);
-    }
+    //Inline schemas scanned for passthrough, by their row in the model
+    private RawJson[] rawSchemas;
+    private BitSet scannedSchemas;
 
-    //Get basePath from base URI
-    private String getBasePath() {
-        int start = raml.getBaseUri().indexOf("//") + 2;
-        if (start == -1) {
-            start = 0;
-        }
+    @Setter
+    private ValidationMode validationMode = ValidationMode.NONE;
 
-        start = raml.getBaseUri().indexOf("/", start);
+    //Validate the output against the Swagger 2.0 schema
+    @Setter
+    private boolean outputValidation;
 
-        if (start < 0) {
-            return null;
-        }
+    //Splice JSON examples and inline schemas into the output as they are, instead of parsing them
+    @Setter
+    private boolean rawJsonPassthrough;
 
-        return raml.getBaseUri().substring(start);
-    }
+    //Charset of the RAML read from streams, files and channels
+    @Setter
+    private Charset charset = StandardCharsets.UTF_8;
 
-    //Put all the API basic info
-    private void getAPIInfo() throws JSONException {
-        JSONObject info = new JSONObject();
+    //Share equal strings in the model of a conversion
+    @Setter
+    private boolean stringInterning = true;
+
+    //Rewrites of the model, the built-in ones and those registered with the ServiceLoader by default
+    @Setter
+    private TransformationPipeline pipeline = TransformationPipeline.standard();
+    private TransformationContext context;
+
+    //Fetch all the includes concurrently on this executor before parsing, if set
+    @Setter
+    private Executor prefetchExecutor;
+
+    //Resolution of the references of the schemas to other schema documents, and the documents kept across conversions
+    @Setter
+    private RefResolution refResolution = RefResolution.NONE;
+    @Setter
+    private SchemaCache schemaCache = new SchemaCache();
+
+    //Order of the keys in the serialized output
+    @Setter
+    private OutputOrder outputOrder = OutputOrder.SOURCE;
 
-        if (!raml.getTitle().isEmpty())
-            info.put(API_TITLE_PARAM_KEY, raml.getTitle());
+    //Limits of every conversion, and the guard enforcing them during one
+    @Setter
+    private ConversionLimits limits = ConversionLimits.NONE;
+    private ConversionGuard guard;
 
-        if (raml.getVersion() != null)
-            info.put(API_VERSION_PARAM_KEY, raml.getVersion());
+    //Diagnostics of the last conversion
+    @Getter
+    private ConversionReport report;
 
-        if (raml.getDocumentation() != null) {
-            /* Uses stream API to create a single property from the documentation entries */
-            info.put(DESCRIPTION_PARAM_KEY, raml.getDocumentation().stream().map(i -> i.getTitle() + " - " + i.getContent()).collect(Collectors.joining(" | ")));
+    //Validation of the RAML, next to the conversion
+    private CompletableFuture<Void> validation;
+
+    private static <E extends Enum<E>> Map<E, String> lowercaseNames(Class<E> type) {
+        Map<E, String> names = new EnumMap<>(type);
+        for (E value : type.getEnumConstants()) {
+            names.put(value, value.toString().toLowerCase());
         }
+        return names;
+    }
+
+    //Start the flight recorder event of a phase
+    private static ConversionEvents.Phase beginPhase(String phase) {
+        return ConversionEvents.phase(phase);
+    }
+
+    private void endPhase(ConversionEvents.Phase event) {
+        event.end(raml != null ? raml.getTitle() : model != null ? model.string(DOCUMENT, 0, DOCUMENT_TITLE) : null);
+    }
 
+    //Put the swagger version
+    private void putSwaggerHeader() throws JSONException {
+        swaggerJSON.put(SWAGGERVERSION_PARAM_KEY, SWAGGERVERSION_PARAM_VALUE);
+    }
 
+    //Put all the API basic info
+    private void getAPIInfo() throws JSONException {
+        JSONObject info = new JSONObject();
+        info.put(API_TITLE_PARAM_KEY, model.string(DOCUMENT, 0, DOCUMENT_TITLE));
+        info.put(API_VERSION_PARAM_KEY, model.string(DOCUMENT, 0, DOCUMENT_VERSION));
+        info.put(DESCRIPTION_PARAM_KEY, model.string(DOCUMENT, 0, DOCUMENT_DESCRIPTION));
         swaggerJSON.put(API_INFO_PARAM_KEY, info);
 
-        //Get the baseURI
-        URL url = null;
-        try {
-            url = new URL(raml.getBaseUri());
-        } catch (MalformedURLException e) {
-            LOGGER.error("Error getting baseUri", e);
+        String[] schemes = model.values(model.get(DOCUMENT, 0, DOCUMENT_SCHEMES), model.get(DOCUMENT, 0, DOCUMENT_SCHEME_COUNT));
+        if (schemes != null) {
+            swaggerJSON.put(SCHEMES_PARAM_KEY, Arrays.asList(schemes));
         }
+        swaggerJSON.put(API_HOST_PARAM_KEY, model.string(DOCUMENT, 0, DOCUMENT_HOST));
+        swaggerJSON.put(PATH_PARAM_KEY, model.string(DOCUMENT, 0, DOCUMENT_BASE_PATH));
+    }
 
-        //Incase the schemes is mentioned in the RAML, use it. Else parse it from the API URL
-        if (raml.getProtocols().size() > 0) {
-            /* Uses Java8 stream API to convert things to lower case and return them as List
-             * Stream api should be read left-to-right
-             * .map() -> takes a lambda function for each element
-             *   the inside lambda function then calls toString().toLowerCase() on each element (p)
-             * .collect() -> the result is then collected as List
-             */
-            swaggerJSON.put(SCHEMES_PARAM_KEY, raml.getProtocols().stream().map(p -> p.toString().toLowerCase()).collect(Collectors.toList()));
-        } else {
-            if (url != null) swaggerJSON.put(SCHEMES_PARAM_KEY, Collections.singletonList(url.getProtocol()));
-        }
-        if (url != null) swaggerJSON.put(API_HOST_PARAM_KEY, url.getHost());
+    //Put all the definitions, the referenced schemas which were not inlined last
+    private void getDefinitions() throws JSONException {
+        JSONObject def = new JSONObject();
+        for (int row = 0; row < model.rows(DEFINITION); row++) {
+            guard.checkpoint();
+            if (report.isStopped()) {
+                return;
+            }
 
-        //Basepath
-        String basePath = getBasePath();
-        if (basePath == null) {
-            basePath = "/";
+            String name = model.string(DEFINITION, row, DEFINITION_NAME);
+            String schema = model.string(SCHEMA, model.get(DEFINITION, row, DEFINITION_SCHEMA), SCHEMA_TEXT);
+            try {
+                if (model.get(DEFINITION, row, DEFINITION_REFERENCED) == 0) {
+                    ConversionEvents.Schema event = ConversionEvents.schema();
+                    JSONObject definition = pipeline.definition(name, JsonText.parse(schema), context);
+                    event.end(name, schema.length());
+                    def.put(name, definition);
+                } else {
+                    //Objects become definitions like the schemas of the spec, the others are cleaned like inline schemas
+                    JSONObject referenced = JsonText.parse(schema);
+                    def.put(name, referenced.has("properties") && referenced.has("type")
+                            ? pipeline.definition(name, referenced, context) : pipeline.inlineSchema(referenced, context));
+                }
+            } catch (TransformationException e) {
+                LOGGER.error("Transformation error", e);
+                report.error(null, null, name, "Transformation stage " + e.getStage() + " failed", e.getCause());
+            } catch (JSONException e) {
+                LOGGER.error("JSON error", e);
+                report.error(null, null, name, "Schema is not a valid JSON object", e);
+            }
         }
+        swaggerJSON.put(API_DEFINITION_PARAM_KEY, def);
+    }
 
-        if (basePath.contains("{")) {
-            int index = basePath.indexOf("/{");
-            basePath = basePath.substring(0, index);
+    //Convert a single schema to a definition, as the built-in stage does
+    static JSONObject getDefinition(String schema) throws JSONException {
+        return SchemaDefinitionStage.toDefinition(JsonText.parse(schema));
+    }
 
-            //Base Uri params
-            baseUriParamPresent = true;
-            indexBaseUriParam = index;
+    //Put all the security schemes
+    private void getSecuritySchemes() throws JSONException {
+        JSONObject securitySch = new JSONObject();
+        for (int row = 0; row < model.rows(SECURITY); row++) {
+            JSONObject value = new JSONObject();
+            value.put(TYPE_PARAM_KEY, model.string(SECURITY, row, SECURITY_TYPE));
+            value.put(DESCRIPTION_PARAM_KEY, model.string(SECURITY, row, SECURITY_DESCRIPTION));
+
+            //Scope field
+            String[] scopes = model.values(model.get(SECURITY, row, SECURITY_SCOPES), model.get(SECURITY, row, SECURITY_SCOPE_COUNT));
+            if (scopes != null) {
+                JSONObject jObj = new JSONObject();
+                for (String scopeString : scopes) {
+                    jObj.put(scopeString, "");
+                }
+                value.put(SCOPES_PARAM_KEY, jObj);
+            }
+
+            value.put(AUTHURL_PARAM_KEY, model.string(SECURITY, row, SECURITY_AUTHORIZATION_URL));
+            value.put(TOKENURL_PARAM_KEY, model.string(SECURITY, row, SECURITY_TOKEN_URL));
+            value.put(FLOW_PARAM_KEY, model.string(SECURITY, row, SECURITY_FLOW));
+            securitySch.put(model.string(SECURITY, row, SECURITY_NAME), value);
         }
 
-        swaggerJSON.put(PATH_PARAM_KEY, basePath);
+        if (securitySch.length() > 0) {
+            swaggerJSON.put(SECDEF_PARAM_KEY, securitySch);
+        }
     }
 
-    //Remove all the required fields from the "properties" JSON Object
-    private void hackPropertiesType(JSONObject jsonObject) throws JSONException {
-        Iterator<?> keys = jsonObject.keys();
-        while (keys.hasNext()) {
-            String key = keys.next().toString();
-            if (jsonObject.get(key) instanceof JSONObject) {
-                JSONObject jObj = ((JSONObject) jsonObject.get(key));
-                if (jObj.has("required")) {
-                    jObj.remove("required");
+    //Put all the resources
+    private void getResources() throws JSONException {
+        JSONObject apiList = new JSONObject();
+        for (int row = 0; row < model.rows(PATH); row++) {
+            guard.checkpoint();
+            if (report.isStopped()) {
+                break;
+            }
+
+            String uri = model.string(PATH, row, PATH_URI);
+            try {
+                JSONObject methodsList = new JSONObject();
+                int first = model.get(PATH, row, PATH_OPERATIONS);
+                for (int operation = first; operation < first + model.get(PATH, row, PATH_OPERATION_COUNT); operation++) {
+                    getMethodsDescription(uri, methodsList, operation);
                 }
 
-                //Recurse through the child to remove any required fields
-                hackPropertiesType((JSONObject) jsonObject.get(key));
-            } else {
-                if (key.equals("required")) {
-                    jsonObject.remove(key);
+                //The extra part in the base path is added to every resource by its stage
+                String key = pipeline.path(uri, methodsList, context);
+                if (key != null) {
+                    apiList.put(key, methodsList);
                 }
+            } catch (JSONException e) {
+                LOGGER.error("JSON error", e);
+                report.error(uri, null, null, "Error converting resource", e);
             }
         }
+        swaggerJSON.put(PATHSVARIABLE_PARAM_KEY, apiList);
     }
 
-    //Put all the definitions
-    private void getDefinitions() throws JSONException {
-        //Definitions key
-        JSONObject def = new JSONObject();              //definitions JSONObject
-        for (Map<String, String> m : raml.getSchemas()) {
+    //Write the details relating to the method
+    private void getMethodsDescription(String uri, JSONObject operations, int row) {
+        guard.checkpoint();
+        ActionType action = ACTION_TYPES[model.get(OPERATION, row, OPERATION_METHOD)];
+        JSONObject operation = new JSONObject();
+        try {
 
-            schemasList.addAll(m.keySet());
+            //Get all the types that the method consumes and produces in response
+            operation.put(CONSUMES_MEDIATYPE_PARAM_KEY, getMediaTypes(row, OPERATION_CONSUMES, OPERATION_CONSUMES_COUNT));
+            operation.put(PRODUCES_MEDIATYPE_PARAM_KEY, getMediaTypes(row, OPERATION_PRODUCES, OPERATION_PRODUCES_COUNT));
 
-            //Collection for every field
-            JSONObject coll = new JSONObject();
+            //Method description
+            operation.put(DESCRIPTION_PARAM_KEY, model.string(OPERATION, row, OPERATION_DESCRIPTION));
 
-            //JSONObject containing names of "Required" fields
-            JSONArray reqArr = new JSONArray();
-            JSONObject newObj = new JSONObject(m.values().toArray()[0].toString());
+            //Header, query, body and path parameters
+            Collection<JSONObject> parameters = new ArrayList<>();
+            int first = model.get(OPERATION, row, OPERATION_PARAMETERS);
+            for (int parameter = first; parameter < first + model.get(OPERATION, row, OPERATION_PARAMETER_COUNT); parameter++) {
+                parameters.add(getParametersInfo(uri, action, parameter));
+            }
+            if (parameters.size() > 0) {
+                operation.put(PARAMETERS_PARAM_KEY, parameters);
+            }
 
-            JSONObject propObj = null;
-            if (newObj.has("properties")) {
-                propObj = (JSONObject) newObj.get("properties");
+            //Method responses, an operation without any gets its default one from its stage
+            JSONObject resp = getResponseInfo(uri, action, row);
+            if (resp.length() > 0) {
+                operation.put(RESPONSES_PARAM_KEY, resp);
             }
 
-            //Iterate through all the keys and get required names
-            if (propObj != null) {
-                Iterator<?> keys = propObj.keys();
-                while (keys.hasNext()) {
-                    String key = keys.next().toString();
-                    JSONObject obj = new JSONObject(propObj.getString(key));
-                    if (obj.has("required")) {
-                        if (obj.getString("required").equals("true")) {
-                            reqArr.put(key);
-                        }
-                    }
-                }
-                coll.put("properties", propObj);
+            //Security requirements from the securedBy of the action, its traits, its resource or the API
+            JSONArray security = getSecurity(row);
+            if (security.length() > 0) {
+                operation.put(SECURITY_PARAM_KEY, security);
             }
-            hackPropertiesType(propObj);
 
-            if (reqArr.length() > 0) {
-                coll.put("required", reqArr);
+            String method = ACTION_NAMES.get(action);
+            operation = pipeline.operation(uri, method, operation, context);
+            if (operation != null) {
+                operations.put(method, operation);
             }
 
-            //Put the type of the resource
-            String type = new JSONObject(m.values().toArray()[0].toString()).getString("type");
-            coll.put("type", type);
+        } catch (JSONException e) {
+            LOGGER.error("JSON error", e);
+            report.error(uri, action.toString(), null, "Error converting action", e);
+        }
+    }
 
-            //Put all the data into the def object
-            def.put(m.keySet().iterator().next(), coll);
+    //Return the security requirements of an operation, an anonymous one is an empty object
+    private JSONArray getSecurity(int operation) throws JSONException {
+        JSONArray security = new JSONArray();
+        int first = model.get(OPERATION, operation, OPERATION_SECURITY);
+        for (int requirement = first; requirement < first + model.get(OPERATION, operation, OPERATION_SECURITY_COUNT); requirement++) {
+            JSONObject jObj = new JSONObject();
+            String name = model.string(REQUIREMENT, requirement, REQUIREMENT_NAME);
+            if (name != null) {
+                String[] scopes = model.values(model.get(REQUIREMENT, requirement, REQUIREMENT_SCOPES),
+                        model.get(REQUIREMENT, requirement, REQUIREMENT_SCOPE_COUNT));
+                jObj.put(name, new JSONArray(Arrays.asList(scopes)));
+            }
+            security.put(jObj);
         }
-        swaggerJSON.put(API_DEFINITION_PARAM_KEY, def);
+        return security;
     }
 
-    //Put all the security schemes
-    @SuppressWarnings("unchecked, EqualsBetweenInconvertibleTypes")
-    private void getSecuritySchemes() throws JSONException {
+    //Return the MIME types of an operation, null if there are none
+    private JSONArray getMediaTypes(int operation, int column, int countColumn) {
+        String[] mediaTypes = model.values(model.get(OPERATION, operation, column), model.get(OPERATION, operation, countColumn));
+        return mediaTypes.length > 0 ? new JSONArray(Arrays.asList(mediaTypes)) : null;
+    }
 
-        //Mapping between type names of Swagger and RAML
-        HashMap<String, String> schemeTypeMapping = new HashMap<>();
-        schemeTypeMapping.put(BASICAUTH_RAML, BASICAUTH_SWGR);
-        schemeTypeMapping.put(OAUTH2_RAML, OAUTH2_SWGR);
+    private JSONObject getResponseInfo(String uri, ActionType action, int operation) throws JSONException {
 
-        JSONObject securitySch = new JSONObject();
-        for (Map<String, SecurityScheme> m : raml.getSecuritySchemes()) {
-            for (Map.Entry<String, SecurityScheme> me : m.entrySet()) {
-
-                if (me.getValue().getType().equals(OAUTH2_RAML)) {
-                    //Get all te setting key value pairs
-                    HashMap<String, Object> map = new HashMap<>(me.getValue().getSettings());
-
-                    List<String> authGrants = (List<String>) map.get("authorizationGrants");
-                    for (String s : authGrants) {
-                        String key = "";
-                        JSONObject value = new JSONObject();
-
-                        value.put(TYPE_PARAM_KEY, schemeTypeMapping.get(me.getValue().getType()));
-                        value.put(DESCRIPTION_PARAM_KEY, me.getValue().getDescription());
-
-                        //Scope field
-                        JSONObject jObj = new JSONObject();
-                        for (String scopeString : (List<String>) map.get("scopes")) {
-                            jObj.put(scopeString, "");
-                        }
-                        value.put(SCOPES_PARAM_KEY, jObj);
-
-                        //Set the remaining value fields based on the grant type
-                        if (s.toLowerCase().equals(CODEFLOW_PARAM_KEY)) {
-                            key = me.getKey() + "_" + CODEFLOW_VALUE;
-                            value.put(AUTHURL_PARAM_KEY, StringUtils.substring(map.get("authorizationUri").toString(), 1, -1));
-                            value.put(TOKENURL_PARAM_KEY, StringUtils.substring(map.get("accessTokenUri").toString(), 1, -1));
-                            value.put(FLOW_PARAM_KEY, CODEFLOW_VALUE);
-
-                        } else if (s.toLowerCase().equals(TOKENFLOW_PARAM_KEY)) {
-                            key = me.getKey() + "_" + TOKENFLOW_VALUE;
-                            value.put(AUTHURL_PARAM_KEY, map.get("authorizationUri"));
-                            value.put(AUTHURL_PARAM_KEY, StringUtils.substring(map.get("authorizationUri").toString(), 1, -1));
-                            value.put(FLOW_PARAM_KEY, TOKENFLOW_VALUE);
-                        } else if (s.toLowerCase().equals(OWNERFLOW_PARAM_KEY)) {
-                            key = me.getKey() + "_" + OWNERFLOW_VALUE;
-                            value.put(TOKENURL_PARAM_KEY, StringUtils.substring(map.get("accessTokenUri").toString(), 1, -1));
-                            value.put(FLOW_PARAM_KEY, OWNERFLOW_VALUE);
-                        } else if (s.toLowerCase().equals(CREDFLOW_PARAM_KEY)) {
-                            key = me.getKey() + "_" + CREDFLOW_VALUE;
-                            value.put(TOKENURL_PARAM_KEY, StringUtils.substring(map.get("accessTokenUri").toString(), 1, -1));
-                            value.put(FLOW_PARAM_KEY, CREDFLOW_VALUE);
-                        }
-
-                        key = authGrants.size() == 1 ? me.getKey() : key;
-                        securitySch.put(key, value);
-                    }
-                } else {
-                    if (me.getValue().getDescribedBy().equals(BASICAUTH_RAML)) {
-                        JSONObject jsonObj = new JSONObject();
-                        jsonObj.put(TYPE_PARAM_KEY, schemeTypeMapping.get(me.getValue().getType()));
-                        jsonObj.put(DESCRIPTION_PARAM_KEY, me.getValue().getDescription());
-                        securitySch.put(me.getKey(), jsonObj);
+        JSONObject retObj = new JSONObject();
+        int first = model.get(OPERATION, operation, OPERATION_RESPONSES);
+        for (int response = first; response < first + model.get(OPERATION, operation, OPERATION_RESPONSE_COUNT); response++) {
+            String code = model.string(RESPONSE, response, RESPONSE_CODE);
+
+            //Get the response description
+            JSONObject fields = new JSONObject();
+            JSONObject examples = new JSONObject();
+            fields.put(DESCRIPTION_PARAM_KEY, model.string(RESPONSE, response, RESPONSE_DESCRIPTION));
+
+            //Get the response schema
+            int bodies = model.get(RESPONSE, response, RESPONSE_BODIES);
+            for (int body = bodies; body < bodies + model.get(RESPONSE, response, RESPONSE_BODY_COUNT); body++) {
+                String mediaType = model.string(BODY, body, BODY_MEDIA_TYPE);
+                String reference = model.string(BODY, body, BODY_REFERENCE);
+                int schema = model.get(BODY, body, BODY_SCHEMA);
+                String example = model.string(BODY, body, BODY_EXAMPLE);
+
+                //If schema definition is already defined in the "Definitions" field
+                if (reference != null) {
+                    fields.put(SCHEMA_PARAM_KEY, new JSONObject().put(REFERENCE_PARAM_KEY, reference));
+                } else if (schema != NONE) {
+                    fields.put(SCHEMA_PARAM_KEY, getInlineSchema(schema, uri + " " + action + " " + code));
+                }
+
+                if (example != null) {
+                    // If example is JSON, let's format it
+                    if (MIMETYPE_JSON.equals(mediaType)) {
+                        RawJson rawJson = rawJsonPassthrough ? RawJson.of(example) : null;
+                        examples.put(mediaType, rawJson != null ? rawJson : JsonText.parse(example));
+                    } else {
+                        // If not, just add it as text
+                        examples.put(mediaType, example);
                     }
                 }
             }
+
+            // If we have examples, add it
+            if (examples.length() > 0)
+                fields.put(EXAMPLES_PARAM_KEY, examples);
+
+            retObj.put(code, fields);
         }
+        return retObj;
+    }
 
-        if (securitySch.length() > 0) {
-            swaggerJSON.put(SECDEF_PARAM_KEY, securitySch);
+    /*
+       Return an inline schema of a response or of the body of an action, as rewritten by the stages. The name of the
+       schema is its path, method and response code or MIME type. In passthrough mode, a schema which has none of the
+       keys removed by the built-in stage is only scanned, once for all its uses, and spliced into the output as it is,
+       unless a user stage rewrites inline schemas. The others still have to be parsed.
+     */
+    private Object getInlineSchema(int schema, String name) throws JSONException {
+        ConversionEvents.Schema event = ConversionEvents.schema();
+
+        String text = model.string(SCHEMA, schema, SCHEMA_TEXT);
+        Object result = null;
+        if (rawJsonPassthrough && !pipeline.isRewritingInlineSchemas()) {
+            if (!scannedSchemas.get(schema)) {
+                rawSchemas[schema] = RawJson.ofObjectWithout(text, InlineSchemaStage.REMOVED_KEYS);
+                scannedSchemas.set(schema);
+            }
+            result = rawSchemas[schema];
         }
+        if (result == null) {
+            result = pipeline.inlineSchema(JsonText.parse(text), context);
+        }
+
+        event.end(name, text.length());
+        return result;
     }
 
-    //Put all the resources
-    private void getResources() throws JSONException {
-        JSONObject apiList = new JSONObject();
-        if (raml.getResources().size() > 0) {
-            retMethodsData(raml.getResources(), apiList, new HashMap<>());
+    //Bundle all the parameter values into a JSON object
+    private JSONObject getParametersInfo(String uri, ActionType action, int row) throws JSONException {
+        JSONObject qp = new JSONObject();
+        int kind = model.get(PARAMETER, row, PARAMETER_KIND);
+        int flags = model.get(PARAMETER, row, PARAMETER_FLAGS);
+        int type = model.get(PARAMETER, row, PARAMETER_TYPE);
+
+        qp.put(PARAMTYPE_PARAM_KEY, PARAMETER_KINDS[kind]);
+        qp.put(NAME_PARAM_KEY, model.string(PARAMETER, row, PARAMETER_NAME));
+        qp.put(DEFAULTVALUE_PARAM_KEY, model.string(PARAMETER, row, PARAMETER_DEFAULT));
+        qp.put(DESCRIPTION_PARAM_KEY, model.string(PARAMETER, row, PARAMETER_DESCRIPTION));
+
+        //Swagger 2.0 has no example for parameters, so it goes to an extension
+        qp.put(EXAMPLE_PARAM_KEY, model.string(PARAMETER, row, PARAMETER_EXAMPLE));
+
+        //Path parameters are always required in Swagger
+        if (kind == PARAMETER_PATH || (flags & FLAG_REQUIRED) != 0) {
+            qp.put(REQUIRED_PARAM_KEY, Boolean.TRUE);
         }
-        swaggerJSON.put(PATHSVARIABLE_PARAM_KEY, apiList);
+
+        //Incase repeat is defined, then the type is "array"
+        String typeName = type == NONE ? null : TYPE_NAMES.get(PARAM_TYPES[type]);
+        if ((flags & FLAG_REPEAT) != 0) {
+            qp.put(TYPE_PARAM_KEY, ARRAYTYPE_PARAM_KEY);
+            JSONObject jObj = new JSONObject();
+            jObj.put(TYPE_MAP_KEY, typeName);
+            qp.put(ITEMS_PARAM_KEY, jObj);
+        } else {
+            qp.put(TYPE_PARAM_KEY, typeName);
+        }
+
+        //The schema of a body, a definition or an inline one
+        String reference = model.string(PARAMETER, row, PARAMETER_REFERENCE);
+        int schema = model.get(PARAMETER, row, PARAMETER_SCHEMA);
+        if (reference != null) {
+            qp.put(SCHEMA_PARAM_KEY, new JSONObject().put(REFERENCE_PARAM_KEY, reference));
+        } else if (schema != NONE) {
+            qp.put(SCHEMA_PARAM_KEY, getInlineSchema(schema, uri + " " + action + " " + model.string(PARAMETER, row, PARAMETER_MEDIA_TYPE)));
+        }
+
+        int enumCount = model.get(PARAMETER, row, PARAMETER_ENUM_COUNT);
+        if (enumCount > 0) {
+            qp.put(ENUM_PARAM_KEY, Arrays.asList(model.values(model.get(PARAMETER, row, PARAMETER_ENUM), enumCount)));
+        }
+
+        qp.put(MAX_PARAM_KEY, getNumber(row, PARAMETER_MAXIMUM));
+        qp.put(MIN_PARAM_KEY, getNumber(row, PARAMETER_MINIMUM));
+        qp.put(MAXLEN_PARAM_KEY, getLength(row, PARAMETER_MAX_LENGTH));
+        qp.put(MINLEN_PARAM_KEY, getLength(row, PARAMETER_MIN_LENGTH));
+        qp.put(PATTERN_PARAM_KEY, model.string(PARAMETER, row, PARAMETER_PATTERN));
+        return qp;
+    }
+
+    private BigDecimal getNumber(int parameter, int column) {
+        String number = model.string(PARAMETER, parameter, column);
+        return number == null ? null : new BigDecimal(number);
+    }
+
+    private Integer getLength(int parameter, int column) {
+        int length = model.get(PARAMETER, parameter, column);
+        return length == NO_NUMBER ? null : length;
     }
 
-    //Post process the json string like unescaping special chars (if any)
-    private String postProcessString(String json) {
+    //Serialize the output, unescaping special chars (if any)
+    private String postProcessString(JSONObject json) {
         String result = "";
         try {
-            result = (new JSONObject(json)).toString(2).replace("\\/", "/");
+            result = outputOrder.apply(json).toString(2).replace("\\/", "/");
         } catch (JSONException e) {
             LOGGER.error("JSON error", e);
+            report.error(null, null, null, "Error serializing the output", e);
         }
 
         return result;
@@ -359,7 +490,7 @@ class RAMLtoSwagger implements Constants {
 
     @SuppressWarnings("WeakerAccess, unused")
     public String convertToSwagger(String raml, ResourceLoader resourceLoader) {
-        return convertToSwagger(new ByteArrayInputStream(raml.getBytes()), resourceLoader);
+        return convertToSwagger(new StringReader(raml), resourceLoader);
     }
 
     @SuppressWarnings("WeakerAccess, unused")
@@ -367,395 +498,325 @@ class RAMLtoSwagger implements Constants {
         return convertToSwagger(input, null);
     }
 
-    //Method called to convert RAML to Swagger
     @SuppressWarnings("WeakerAccess, unused")
     public String convertToSwagger(InputStream input, ResourceLoader resourceLoader) {
+        return convertToSwagger(new InputStreamReader(input, charset), resourceLoader);
+    }
 
-        //Pass the file stream to the RAML parser
-        swaggerJSON = new JSONObject();
-        if (resourceLoader != null) {
-            raml = new RamlDocumentBuilder(resourceLoader).build(input);
-        } else {
-            raml = new RamlDocumentBuilder().build(input);
-        }
-
-        try {
-            //Swagger version
-            putSwaggerHeader();
-
-            //All the API info
-            getAPIInfo();
-
-            //All the definitions
-            getDefinitions();
-
-            //All the resources
-            getResources();
+    //Convert a RAML file, its includes are resolved relative to its directory
+    @SuppressWarnings("WeakerAccess, unused")
+    public String convertToSwagger(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        return convertToSwagger(path, new CompositeResourceLoader(new UrlResourceLoader(), new FileResourceLoader(directory.toFile())));
+    }
 
-            //All the security schemes
-            getSecuritySchemes();
-        } catch (JSONException e) {
-            LOGGER.error("Error processing the RAML file");
-            return null;
+    @SuppressWarnings("WeakerAccess, unused")
+    public String convertToSwagger(Path path, ResourceLoader resourceLoader) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return convertToSwagger(channel, resourceLoader);
         }
-
-        return postProcessString(swaggerJSON.toString());
     }
 
-    //Method which recursively gets all the data for every resource
-    private void retMethodsData(Map<String, Resource> resources, JSONObject apiList, HashMap<String, UriParameter> map) {
-        for (Map.Entry<String, Resource> resourceEntry : resources.entrySet()) {
-            try {
-                HashMap<String, UriParameter> localMap = new HashMap<>(map);
-                localMap.putAll(resourceEntry.getValue().getUriParameters());
-
-                /*
-                   If base URI param is present, that part in the baseUri must be scrapped from the base uri and put
-                   before all the resource paths.
-                   Reason: Swagger doesn't allow path templating in its 'host' and 'basePath' fields. But RAML supports it.
-                   So, this has to be done.
-                 */
-
-                if (baseUriParamPresent) {
-                    if (raml.getBaseUriParameters() != null && raml.getBaseUriParameters().size() > 0) {
-                        localMap.putAll(raml.getBaseUriParameters());
-                    }
-                }
-
-                JSONObject topResource = getSpecificResourceData(resourceEntry, new HashMap<>(localMap));
-                String key = topResource.keys().next().toString();
-                JSONObject value = (JSONObject) topResource.get(key);
-
-                //Add the extra part in the base path to every resource
-                if (baseUriParamPresent) {
-                    key = raml.getBasePath().substring(indexBaseUriParam) + key;
-                }
-                apiList.put(key, value);
-
-                //Incase there are subresources for a resource
-                if (resourceEntry.getValue().getResources().size() > 0) {
-                    //Send the map object by value(new HashMap<>(map)) so that values of a particular resource will have only its uriparams
-                    retMethodsData(resourceEntry.getValue().getResources(), apiList, new HashMap<>(localMap));
-                }
-            } catch (JSONException e) {
-                LOGGER.error("JSON error", e);
-            }
-        }
+    //Convert the RAML from the current position of the channel to its end, large files are memory-mapped
+    @SuppressWarnings("WeakerAccess, unused")
+    public String convertToSwagger(FileChannel channel, ResourceLoader resourceLoader) throws IOException {
+        return convertToSwagger(ChannelReader.open(channel, charset), resourceLoader);
     }
 
-    //Get all the params and other data for a given specific resource
-    private JSONObject getSpecificResourceData(Map.Entry<String, Resource> resourceEntry, HashMap<String, UriParameter> map) {
-        JSONObject apiMap = new JSONObject();
+    //Method called to convert RAML to Swagger
+    @SuppressWarnings("WeakerAccess, unused")
+    public String convertToSwagger(Reader input, ResourceLoader resourceLoader) {
         try {
-
-            JSONObject methodsList = new JSONObject();
-
-            //Iterate for every method of the resource
-            for (Map.Entry<ActionType, Action> action : resourceEntry.getValue().getActions().entrySet()) {
-                getMethodsDescription(methodsList, action, map);
-            }
-
-            apiMap.put(resourceEntry.getValue().getUri(), methodsList);
-        } catch (JSONException e) {
-            LOGGER.error("JSON error", e);
+            return convert(input, resourceLoader, new ConversionGuard(limits, () -> false), new ConversionReport(validationMode));
+        } catch (ConversionLimitException e) {
+            return null;
         }
-        return apiMap;
     }
 
-    //Write the details relating to the method
-    private void getMethodsDescription(JSONObject operations, Map.Entry<ActionType, Action> action, HashMap<String, UriParameter> map) {
-        JSONObject operation = new JSONObject();
+    //Convert a model built before, or mapped from a snapshot. The stages get its title and version, but no RAML document
+    @SuppressWarnings("WeakerAccess, unused")
+    public String convertToSwagger(ApiModel model) {
+        report = new ConversionReport(validationMode);
+        ConversionGuard guard = new ConversionGuard(limits, () -> false);
+        this.guard = guard;
+        raml = null;
         try {
-
-            //Get all the types that the method consumes
-            operation.put(CONSUMES_MEDIATYPE_PARAM_KEY, getConsumesArray(action));
-
-            //Get all the types that the method produces in response
-            operation.put(PRODUCES_MEDIATYPE_PARAM_KEY, getProducesArray(action));
-
-            //Method description
-            operation.put(DESCRIPTION_PARAM_KEY, action.getValue().getDescription());
-
-            //read parameters headers,body,query etc.
-            Collection<JSONObject> parameters = new ArrayList<>();
-
-            //add header/query & body params
-            getHeaderParams(action, parameters);
-            getQueryParams(action, parameters);
-            getBodyParams(action, parameters);
-            getPathParams(map.entrySet(), parameters);
-
-            if (parameters.size() > 0) {
-                operation.put(PARAMETERS_PARAM_KEY, parameters);
-            }
-
-            //Method responses
-            JSONObject resp = getResponseInfo(action);
-            if (resp.length() > 0) {
-                operation.put(RESPONSES_PARAM_KEY, resp);
-            } else {
-                resp = new JSONObject();
-                resp.put("200", new JSONObject().put("description", "OK"));
-                operation.put(RESPONSES_PARAM_KEY, resp);
-            }
-            operations.put(action.getKey().toString().toLowerCase(), operation);
-
-        } catch (JSONException e) {
-            LOGGER.error("JSON error", e);
+            JSONObject json = buildTree(model);
+            return json == null ? null : serialize(json, guard);
+        } catch (ConversionLimitException e) {
+            abort(e);
+            return null;
+        } finally {
+            this.guard = null;
         }
     }
 
-    //Return the MIME types that the method consumes
-    private JSONArray getConsumesArray(Map.Entry<ActionType, Action> action) {
-        List<String> consList = new ArrayList<>();
-        for (Map.Entry<String, MimeType> map : action.getValue().getBody().entrySet()) {
-            if (!consList.contains(map.getKey())) {
-                consList.add(map.getKey());
+    //Parse the RAML into its model, which can be converted again or written as a snapshot. Null if the parsing failed
+    @SuppressWarnings("WeakerAccess, unused")
+    public ApiModel toModel(Reader input, ResourceLoader resourceLoader) {
+        report = new ConversionReport(validationMode);
+        guard = new ConversionGuard(limits, () -> false);
+        try {
+            ApiModel result = buildModel(input, resourceLoader);
+            finishValidation();
+            if (result == null || report.isStopped()) {
+                LOGGER.error("Conversion failed:\n{}", report);
+                return null;
             }
+            return result;
+        } catch (ConversionLimitException e) {
+            abort(e);
+            return null;
+        } finally {
+            guard = null;
+            model = null;
         }
-
-        JSONArray consumesArr = new JSONArray(consList);
-        return consumesArr.length() > 0 ? consumesArr : null;
     }
 
-    //Return the MIME types that the method produces
-    private JSONArray getProducesArray(Map.Entry<ActionType, Action> action) {
-        List<String> prodList = new ArrayList<>();
-        for (Map.Entry<String, Response> responsesMap : action.getValue().getResponses().entrySet()) {
-            for (Map.Entry<String, MimeType> prodBody : responsesMap.getValue().getBody().entrySet()) {
-                if (!prodList.contains(prodBody.getKey())) {
-                    prodList.add(prodBody.getKey());
-                }
+    /*
+       Convert on the executor. Cancelling the future stops the conversion at its next checkpoint, and exceeding one of
+       the limits completes it with a ConversionLimitException, at the latest when the timeout expires even if the
+       conversion is still stuck in the parser. The future completes with null if the conversion failed otherwise, the
+       report tells why. The conversion runs on its own copy of the converter, so a conversion which is still running
+       after its future completed never interferes with the next ones of this converter, and it stops at its next
+       checkpoint. The report of the converter is the one of the last conversion started.
+     */
+    @SuppressWarnings("WeakerAccess, unused")
+    public CompletableFuture<String> convertToSwaggerAsync(Callable<Reader> input, ResourceLoader resourceLoader, Executor executor) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        ConversionGuard guard = new ConversionGuard(limits, result::isDone);
+        ConversionReport conversionReport = new ConversionReport(validationMode);
+        RAMLtoSwagger worker = copy();
+        report = conversionReport;
+
+        executor.execute(() -> {
+            if (result.isDone()) {
+                return;
             }
-        }
+            try (Reader reader = input.call()) {
+                result.complete(worker.convert(reader, resourceLoader, guard, conversionReport));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
 
-        JSONArray prodArr = new JSONArray(prodList);
-        return prodArr.length() > 0 ? prodArr : null;
-    }
-
-    // Generic function processing various parameters from RAML. All of them are subclasses of AbstractParam, so a
-    // safe generalization can be made. The target collection/store is done using functional programing principles by
-    // passing in the storing function. Later on lambda expressions or simple function references can be used in an
-    // elegant way.
-    private <T extends AbstractParam> void getParams(Set<Map.Entry<String, T>> entries, String paramType, Consumer<JSONObject> store) throws JSONException {
-        for (Map.Entry<String, T> entry : entries) {
-
-            HashMap<String, Object> values = new HashMap<>();
-            values.put(NAME_MAP_KEY, entry.getKey());
-            values.put(DEFVALUE_MAP_KEY, entry.getValue().getDefaultValue());
-            values.put(DESC_MAP_KEY, entry.getValue().getDescription());
-            values.put(ISREQD_MAP_KEY, entry.getValue().isRequired());
-            values.put(TYPE_MAP_KEY, entry.getValue().getType().toString());
-            values.put(ENUM_MAP_KEY, entry.getValue().getEnumeration());
-            values.put(MAX_MAP_KEY, entry.getValue().getMaximum());
-            values.put(MIN_MAP_KEY, entry.getValue().getMinimum());
-            values.put(MAXLEN_MAP_KEY, entry.getValue().getMaxLength());
-            values.put(MINLEN_MAP_KEY, entry.getValue().getMinLength());
-            values.put(EXAMPLE_MAP_KEY, entry.getValue().getExample());
-            values.put(PATTERN_MAP_KEY, entry.getValue().getPattern());
-            values.put(REPEAT_MAP_KEY, entry.getValue().isRepeat());
-            values.put(PARAMTYPE_MAP_KEY, paramType);
-
-            // Calling the passed in store function. Note that not a structure is passed in, but a function. See
-            // functional programing principles in Java.
-            store.accept(getParametersInfo(values));
+        if (limits.getTimeout() != null) {
+            ScheduledFuture<?> timeout = Timeouts.SCHEDULER.schedule(() -> result.completeExceptionally(
+                    new ConversionLimitException("Conversion took longer than " + limits.getTimeout())),
+                    limits.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            result.whenComplete((json, e) -> timeout.cancel(false));
         }
+        return result;
     }
 
-    // ---- The below code are the simplified version of their former implementation removing 3-times code duplication
-
-    //Get all the path(URI) parameters for a specific method
-    private void getPathParams(Set<Map.Entry<String, UriParameter>> entries, Collection<JSONObject> parameters)
-            throws JSONException {
-
-        getParams(entries, PARAMTYPE_PATH, parameters::add);
+    //A converter with the same settings, which runs its conversions on its own
+    private RAMLtoSwagger copy() {
+        RAMLtoSwagger copy = new RAMLtoSwagger();
+        copy.validationMode = validationMode;
+        copy.outputValidation = outputValidation;
+        copy.rawJsonPassthrough = rawJsonPassthrough;
+        copy.charset = charset;
+        copy.stringInterning = stringInterning;
+        copy.pipeline = pipeline;
+        copy.prefetchExecutor = prefetchExecutor;
+        copy.refResolution = refResolution;
+        copy.schemaCache = schemaCache;
+        copy.outputOrder = outputOrder;
+        copy.limits = limits;
+        return copy;
     }
 
-    //Get all the header params for a specific method
-    private void getHeaderParams(Map.Entry<ActionType, Action> action, Collection<JSONObject> parameters)
-            throws JSONException {
-
-        getParams(action.getValue().getHeaders().entrySet(), PARAMTYPE_HEADER, parameters::add);
+    //Timer of the asynchronous conversions, started on first use
+    private static class Timeouts {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "raml2swagger-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    //Get all the query params for a specific method
-    private void getQueryParams(Map.Entry<ActionType, Action> action, Collection<JSONObject> parameters)
-            throws JSONException {
 
-        getParams(action.getValue().getQueryParameters().entrySet(), PARAMTYPE_QUERY, parameters::add);
+    //Convert and serialize. Exceeding a limit or a cancellation is reported and thrown
+    private String convert(Reader input, ResourceLoader resourceLoader, ConversionGuard guard, ConversionReport report) {
+        JSONObject json = convertToTree(input, resourceLoader, guard, report);
+        return json == null ? null : serialize(json, guard);
     }
 
-    //Get all the body params for a specific method
-    private void getBodyParams(Map.Entry<ActionType, Action> action,
-                                      Collection<JSONObject> parameters) throws JSONException {
+    private String serialize(JSONObject json, ConversionGuard guard) {
+        ConversionEvents.Phase event = beginPhase("serialization");
+        String result = postProcessString(json);
+        endPhase(event);
 
-        for (Map.Entry<String, MimeType> mimeType : action.getValue().getBody().entrySet()) {
-            String schema = "";
-            String example = "";
-            if (mimeType.getValue().getSchema() != null) {
-                schema = mimeType.getValue().getSchema();
-            }
-            if (mimeType.getValue().getExample() != null) {
-                example = mimeType.getValue().getExample();
-            }
-            HashMap<String, Object> values = new HashMap<>();
-            values.put(NAME_MAP_KEY, "body");
-            values.put(ISREQD_MAP_KEY, Boolean.TRUE);
-            values.put(SCHEMA_MAP_KEY, schema);
-            values.put(EXAMPLES_PARAM_KEY, example);
-            values.put(PARAMTYPE_MAP_KEY, PARAMTYPE_BODY);
-
-            JSONObject qp = getParametersInfo(values);
-            parameters.add(qp);
+        try {
+            guard.checkOutput(result);
+        } catch (ConversionLimitException e) {
+            abort(e);
+            throw e;
         }
+        return result;
     }
 
-    private JSONObject getResponseInfo(Map.Entry<ActionType, Action> action) throws JSONException {
-
-        JSONObject retObj = new JSONObject();
-        for (Map.Entry<String, Response> responsesMap : action.getValue().getResponses().entrySet()) {
-
-            //Get the response description
-            JSONObject fields = new JSONObject();
-            JSONObject examples = new JSONObject();
-            String description = responsesMap.getValue().getDescription() == null ? getResponseMessage(Integer.valueOf(responsesMap.getKey())) : responsesMap.getValue().getDescription();
-            fields.put(DESCRIPTION_PARAM_KEY, description);
+    //Convert RAML to the Swagger JSON tree, null if the conversion failed or exceeded a limit
+    JSONObject convertToTree(Reader input, ResourceLoader resourceLoader) {
+        try {
+            return convertToTree(input, resourceLoader, new ConversionGuard(limits, () -> false), new ConversionReport(validationMode));
+        } catch (ConversionLimitException e) {
+            return null;
+        }
+    }
 
-            //Get the response schema
-            for (Map.Entry<String, MimeType> me : responsesMap.getValue().getBody().entrySet()) {
-                String schema = me.getValue().getSchema();
-                String example = me.getValue().getExample();
+    private JSONObject convertToTree(Reader input, ResourceLoader resourceLoader, ConversionGuard guard, ConversionReport report) {
+        this.report = report;
+        this.guard = guard;
+        try {
+            ApiModel result = buildModel(input, resourceLoader);
+            return result == null ? null : buildTree(result);
+        } catch (ConversionLimitException | CancellationException e) {
+            abort(e);
+            throw e;
+        } finally {
+            this.guard = null;
+        }
+    }
 
-                //Suppose schema is well-formed
-                if (schema != null && schema.length() > 0) {
+    //Stop the validation and record why the conversion stopped
+    private void abort(RuntimeException e) {
+        LOGGER.error("Conversion stopped: {}", e.getMessage());
+        report.error(null, null, null, e.getMessage(), e);
+        report.stop();
+    }
 
-                    //If schema definition is already defined in the "Definitions" field
-                    if (schemasList.contains(schema)) {
-                        fields.put(SCHEMA_PARAM_KEY, new JSONObject().put(REFERENCE_PARAM_KEY, "#/definitions/" + schema));
-                    } else {
-                        JSONObject jsonObj = new JSONObject(schema);
-                        if (jsonObj.has("$schema"))
-                            jsonObj.remove("$schema");
-                        if (jsonObj.has("required"))
-                            jsonObj.remove("required");
-                        fields.put(SCHEMA_PARAM_KEY, jsonObj);
-                    }
-                }
+    //Read and parse the RAML and build its model, starting its validation. Null if it could not be read
+    private ApiModel buildModel(Reader input, ResourceLoader resourceLoader) {
+        raml = null;
+        model = null;
+        context = null;
+        validation = null;
+        try {
+            //Both the spec and its includes are read through the guard
+            Reader reader = guard.reader(input);
+            ResourceLoader loader = guard.loader(resourceLoader != null ? resourceLoader : new DefaultResourceLoader());
+
+            if (prefetchExecutor != null) {
+                ConversionEvents.Phase phase = beginPhase("prefetch");
+                String spec = IOUtils.toString(reader);
+                loader = new IncludePrefetcher(loader, prefetchExecutor).prefetch(spec);
+                reader = new StringReader(spec);
+                endPhase(phase);
+            }
 
-                if (example != null && example.length() > 0) {
-                    // If example is JSON, let's format it
-                    if (MIMETYPE_JSON.equals(me.getKey())) {
-                        JSONObject jsonObj = new JSONObject(example);
-                        examples.put(me.getKey(), jsonObj);
-                    } else {
-                        // If not, just add it as text
-                        examples.put(me.getKey(), example);
-                    }
-                }
+            //Pass the file stream to the RAML parser
+            ConversionEvents.Phase phase = beginPhase("parse");
+            raml = new RamlDocumentBuilder(loader).build(reader);
+            endPhase(phase);
+
+            //The validation stage only reads the RAML, so it runs next to the conversion
+            if (validationMode != ValidationMode.NONE) {
+                RamlValidator validator = new RamlValidator(raml, report);
+                validation = CompletableFuture.runAsync(() -> {
+                    ConversionEvents.Phase event = beginPhase("validation");
+                    validator.validate();
+                    endPhase(event);
+                });
             }
 
-            // If we have examples, add it
-            if (examples.length() > 0)
-                fields.put(EXAMPLES_PARAM_KEY, examples);
+            SchemaRefResolver refResolver = null;
+            if (refResolution != RefResolution.NONE) {
+                Set<String> schemaNames = new HashSet<>();
+                raml.getSchemas().forEach(schema -> schemaNames.addAll(schema.keySet()));
+                refResolver = new SchemaRefResolver(loader, refResolution, schemaCache, report, schemaNames);
+            }
 
-            retObj.put(responsesMap.getKey(), fields);
+            phase = beginPhase("model");
+            model = new ApiModelBuilder(raml, guard, report, refResolver, stringInterning).build();
+            endPhase(phase);
+            return model;
+        } catch (IOException e) {
+            LOGGER.error("Error reading the RAML file");
+            report.error(null, null, null, "Error reading the RAML file", e);
+            return null;
         }
-        return retObj;
     }
 
-    //Bundle all the parameter values into a JSON object
-    @SuppressWarnings("unchecked")
-    private JSONObject getParametersInfo(HashMap<String, Object> values)
-            throws JSONException {
-
-        JSONObject qp = new JSONObject();
-
-        //Incase the parameter type is defined
-        if (values.get(PARAMTYPE_MAP_KEY) != null) {
-            qp.put(PARAMTYPE_PARAM_KEY, values.get(PARAMTYPE_MAP_KEY));
+    //Wait for the validation of the RAML, if it runs
+    private void finishValidation() {
+        if (validation != null) {
+            try {
+                validation.join();
+            } catch (CompletionException e) {
+                report.error(null, null, null, "Validation failed", e.getCause());
+            }
+            validation = null;
         }
+    }
 
-        //Incase the parameter name is defined
-        if (values.get(NAME_MAP_KEY) != null) {
-            qp.put(NAME_PARAM_KEY, values.get(NAME_MAP_KEY));
-        }
+    //Write the Swagger JSON tree of the model
+    private JSONObject buildTree(ApiModel model) {
+        this.model = model;
+        swaggerJSON = new JSONObject();
+        rawSchemas = new RawJson[model.rows(SCHEMA)];
+        scannedSchemas = new BitSet(rawSchemas.length);
 
-        //Incase the default value is defined
-        if (values.get(DEFVALUE_MAP_KEY) != null) {
-            qp.put(DEFAULTVALUE_PARAM_KEY, values.get(DEFVALUE_MAP_KEY));
-        }
+        boolean failed = false;
+        try {
+            //Swagger version
+            ConversionEvents.Phase phase = beginPhase("info");
+            putSwaggerHeader();
 
-        //Incase the description field is defined
-        if (values.get(DESC_MAP_KEY) != null) {
-            qp.put(DESCRIPTION_PARAM_KEY, values.get(DESC_MAP_KEY));
-        }
+            //All the API info
+            getAPIInfo();
+            context = new TransformationContext(raml, model.string(DOCUMENT, 0, DOCUMENT_TITLE),
+                    model.string(DOCUMENT, 0, DOCUMENT_VERSION), model.string(DOCUMENT, 0, DOCUMENT_PATH_PREFIX));
+            endPhase(phase);
 
-        //Incase the example field is defined
-        if (values.get(EXAMPLE_MAP_KEY) != null) {
-            qp.put(EXAMPLE_MAP_KEY, values.get(EXAMPLE_MAP_KEY));
-        }
+            //All the definitions
+            phase = beginPhase("definitions");
+            getDefinitions();
+            endPhase(phase);
 
-        //Incase the Required field is defined
-        if (values.get(ISREQD_MAP_KEY) != null && (Boolean) values.get(ISREQD_MAP_KEY)) {
-            qp.put(REQUIRED_PARAM_KEY, values.get(ISREQD_MAP_KEY));
-        }
+            //All the resources
+            phase = beginPhase("resources");
+            getResources();
+            endPhase(phase);
 
-        //Incase repeat is defined, then the type is "array"
-        if (values.get(REPEAT_MAP_KEY) != null && (Boolean) values.get(REPEAT_MAP_KEY)) {
-            qp.put(TYPE_PARAM_KEY, ARRAYTYPE_PARAM_KEY);
-            JSONObject jObj = new JSONObject();
-            jObj.put(TYPE_MAP_KEY, ((String) values.get(TYPE_MAP_KEY)).toLowerCase());
-            qp.put(ITEMS_PARAM_KEY, jObj);
-        } else {
-            if (values.get(TYPE_MAP_KEY) != null) {
-                qp.put(TYPE_PARAM_KEY, ((String) values.get(TYPE_MAP_KEY)).toLowerCase());
-            }
-        }
+            //All the security schemes
+            phase = beginPhase("securitySchemes");
+            getSecuritySchemes();
+            endPhase(phase);
 
-        ////Incase the schema is defined
-        if (values.get(SCHEMA_MAP_KEY) != null && !(values.get(SCHEMA_MAP_KEY)).equals("")) {
-
-            //If schema definition is already defined in the "Definitions" field
-            if (schemasList.contains(values.get(SCHEMA_MAP_KEY).toString())) {
-                qp.put(SCHEMA_PARAM_KEY, new JSONObject().put(REFERENCE_PARAM_KEY, "#/definitions/" + values.get(SCHEMA_MAP_KEY)));
-            } else {
-                JSONObject jsonObj = new JSONObject((String) values.get(SCHEMA_MAP_KEY));
-                if (jsonObj.has("$schema"))
-                    jsonObj.remove("$schema");
-                if (jsonObj.has("required"))
-                    jsonObj.remove("required");
-                qp.put(SCHEMA_PARAM_KEY, jsonObj);
-            }
+            phase = beginPhase("document");
+            pipeline.document(swaggerJSON, context);
+            endPhase(phase);
+        } catch (JSONException e) {
+            LOGGER.error("Error processing the RAML file");
+            report.error(null, null, null, "Error processing the RAML file", e);
+            failed = true;
         }
 
-        //Incase the enum array is not empty
-        if (values.get(ENUM_MAP_KEY) != null && ((List<String>) values.get(ENUM_MAP_KEY)).size() > 0) {
-            qp.put(ENUM_PARAM_KEY, (List<String>) values.get(ENUM_MAP_KEY));
-        }
+        finishValidation();
 
-        //Incase the max value is defined
-        if (values.get(MAX_MAP_KEY) != null) {
-            qp.put(MAX_PARAM_KEY, values.get(MAX_MAP_KEY));
+        if (!failed && outputValidation && !report.isStopped()) {
+            ConversionEvents.Phase phase = beginPhase("outputValidation");
+            validateOutput();
+            endPhase(phase);
         }
 
-        //Incase the min value is defined
-        if (values.get(MIN_MAP_KEY) != null) {
-            qp.put(MIN_PARAM_KEY, values.get(MIN_MAP_KEY));
-        }
+        this.model = null;
+        rawSchemas = null;
+        scannedSchemas = null;
 
-        //Incase the maxLength value is defined
-        if (values.get(MAXLEN_MAP_KEY) != null) {
-            qp.put(MAXLEN_PARAM_KEY, values.get(MAXLEN_MAP_KEY));
+        if (failed || report.isStopped()) {
+            LOGGER.error("Conversion failed:\n{}", report);
+            return null;
         }
 
-        if (values.get(MINLEN_MAP_KEY) != null) {
-            qp.put(MINLEN_PARAM_KEY, values.get(MINLEN_MAP_KEY));
-        }
+        return swaggerJSON;
+    }
 
-        //Incase the minLength value is defined
-        if (values.get(PATTERN_MAP_KEY) != null) {
-            qp.put(PATTERN_PARAM_KEY, values.get(PATTERN_MAP_KEY));
-        }
-        return qp;
+    //Check the output tree against the Swagger 2.0 schema
+    private void validateOutput() {
+        String prefix = context.getPathPrefix();
+        SwaggerValidator.report(SwaggerValidator.validate(swaggerJSON), swaggerJSON,
+                path -> path.startsWith(prefix) ? path.substring(prefix.length()) : path, report);
     }
 }
@@ -0,0 +1,138 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.raml.model.*;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validation stage checking a parsed RAML model for everything the conversion would trip over: schemas which are not
+ * JSON or have no type, unknown schema references, malformed JSON examples and non-numeric response codes.
+ * <p>
+ * It only reads the model, so it can run concurrently with the conversion of the same model.
+ */
+class RamlValidator implements Constants {
+    private final Raml raml;
+    private final ConversionReport report;
+    private final Set<String> schemaNames = new HashSet<>();
+
+    RamlValidator(Raml raml, ConversionReport report) {
+        this.raml = raml;
+        this.report = report;
+    }
+
+    void validate() {
+        validateSchemas();
+        if (raml.getResources() != null) {
+            validateResources(raml.getResources());
+        }
+    }
+
+    //Every top level schema must be a JSON object with a type, and so must be all of its properties
+    private void validateSchemas() {
+        for (Map<String, String> m : raml.getSchemas()) {
+            for (Map.Entry<String, String> schema : m.entrySet()) {
+                schemaNames.add(schema.getKey());
+                if (report.isStopped()) {
+                    return;
+                }
+
+                try {
+                    JSONObject jsonObj = JsonText.parse(schema.getValue());
+                    if (!jsonObj.has(TYPE_PARAM_KEY)) {
+                        report.error(null, null, schema.getKey(), "Schema has no type", null);
+                    }
+
+                    if (jsonObj.has("properties")) {
+                        JSONObject propObj = jsonObj.getJSONObject("properties");
+                        Iterator<?> keys = propObj.keys();
+                        while (keys.hasNext()) {
+                            String key = keys.next().toString();
+                            if (!(propObj.get(key) instanceof JSONObject)) {
+                                report.error(null, null, schema.getKey(), "Property '" + key + "' is not an object", null);
+                            }
+                        }
+                    }
+                } catch (JSONException e) {
+                    report.error(null, null, schema.getKey(), "Schema is not a valid JSON object", e);
+                }
+            }
+        }
+    }
+
+    private void validateResources(Map<String, Resource> resources) {
+        for (Resource resource : resources.values()) {
+            if (report.isStopped()) {
+                return;
+            }
+
+            for (Map.Entry<ActionType, Action> action : resource.getActions().entrySet()) {
+                validateAction(resource.getUri(), action.getKey().toString(), action.getValue());
+            }
+            validateResources(resource.getResources());
+        }
+    }
+
+    private void validateAction(String uri, String actionName, Action action) {
+        for (Map.Entry<String, MimeType> mimeType : action.getBody().entrySet()) {
+            validateSchema(uri, actionName, mimeType.getValue().getSchema());
+        }
+
+        for (Map.Entry<String, Response> response : action.getResponses().entrySet()) {
+            if (ResponseCodes.parse(response.getKey()) < 0) {
+                report.warning(uri, actionName, null, "Response code '" + response.getKey() + "' is not a status code");
+            }
+
+            for (Map.Entry<String, MimeType> mimeType : response.getValue().getBody().entrySet()) {
+                validateSchema(uri, actionName, mimeType.getValue().getSchema());
+
+                String example = mimeType.getValue().getExample();
+                if (MIMETYPE_JSON.equals(mimeType.getKey()) && example != null && example.length() > 0) {
+                    try {
+                        JsonText.parse(example);
+                    } catch (JSONException e) {
+                        report.error(uri, actionName, null, "Example of response " + response.getKey() + " is not a valid JSON object", e);
+                    }
+                }
+            }
+        }
+    }
+
+    //A schema is either the name of a top level schema or an inline JSON schema
+    private void validateSchema(String uri, String actionName, String schema) {
+        if (schema == null || schema.length() == 0 || schemaNames.contains(schema)) {
+            return;
+        }
+
+        try {
+            JsonText.parse(schema);
+        } catch (JSONException e) {
+            String name = schema.trim().startsWith("{") ? null : schema;
+            report.error(uri, actionName, name, name == null ? "Inline schema is not a valid JSON object" : "Unknown schema", e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.codehaus.jettison.json.JSONString;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A JSON value kept as the original text, which is written into the output as it is.
+ * <p>
+ * The text is only checked with a streaming scan: no tree is built, string values are skipped without being decoded
+ * and only the top level keys of an object are read.
+ */
+final class RawJson implements JSONString {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String json;
+
+    private RawJson(String json) {
+        this.json = json;
+    }
+
+    //Raw value if the text is a single well-formed JSON value, null otherwise
+    static RawJson of(String text) {
+        return scan(text, false, Collections.emptyList()) ? new RawJson(text) : null;
+    }
+
+    //Raw value if the text is a well-formed JSON object without any of the given top level keys, null otherwise
+    static RawJson ofObjectWithout(String text, String... keys) {
+        return scan(text, true, Arrays.asList(keys)) ? new RawJson(text) : null;
+    }
+
+    private static boolean scan(String text, boolean object, Collection<String> excludedKeys) {
+        if (text == null) {
+            return false;
+        }
+
+        try (JsonParser parser = JSON_FACTORY.createParser(new StringReader(text))) {
+            JsonToken token = parser.nextToken();
+            if (token == null || (object && token != JsonToken.START_OBJECT)) {
+                return false;
+            }
+
+            int depth = 0;
+            do {
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                } else if (token == JsonToken.FIELD_NAME && depth == 1 && excludedKeys.contains(parser.getCurrentName())) {
+                    return false;
+                }
+            } while (depth > 0 && (token = parser.nextToken()) != null);
+
+            //Exactly one value, nothing after it
+            return depth == 0 && parser.nextToken() == null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toJSONString() {
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+}
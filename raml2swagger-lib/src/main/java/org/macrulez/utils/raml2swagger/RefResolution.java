@@ -0,0 +1,35 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+/**
+ * What happens to the <code>$ref</code>s of the schemas which point to other schema documents.
+ */
+enum RefResolution {
+    //References are copied to the output as they are
+    NONE,
+
+    //The referenced schemas replace the references, the ones referencing themselves are lifted into the definitions
+    INLINE,
+
+    //Every referenced schema becomes a definition, the references point to it
+    DEFINITIONS
+}
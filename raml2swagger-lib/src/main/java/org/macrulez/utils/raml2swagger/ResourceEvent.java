@@ -0,0 +1,57 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of the conversion of one resource, without its sub-resources.
+ */
+@Name("org.macrulez.raml2swagger.Resource")
+@Label("Resource Conversion")
+@Category({"RAML to Swagger"})
+@StackTrace(false)
+class ResourceEvent extends Event implements ConversionEvents.Resource {
+    @Label("URI")
+    String uri;
+
+    @Label("Actions")
+    int actions;
+
+    @Label("Parameters")
+    int parameters;
+
+    static ResourceEvent start() {
+        ResourceEvent event = new ResourceEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void end(String uri, int actions, int parameters) {
+        if (shouldCommit()) {
+            this.uri = uri;
+            this.actions = actions;
+            this.parameters = parameters;
+            commit();
+        }
+    }
+}
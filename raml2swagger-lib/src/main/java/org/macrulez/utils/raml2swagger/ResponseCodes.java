@@ -0,0 +1,166 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Properties;
+
+/**
+ * HTTP reason phrases indexed directly by the status code, shared by every converter instance.
+ * <p>
+ * Non-standard codes can be registered at runtime with {@link #register(int, String)}, or through any
+ * <code>raml2swagger-response-codes.properties</code> file on the classpath (<code>code=phrase</code> entries), which
+ * are read once when the class is loaded.
+ */
+@Slf4j
+final class ResponseCodes {
+    static final String CONFIG_RESOURCE = "raml2swagger-response-codes.properties";
+
+    private static final int MIN_CODE = 100;
+    private static final int MAX_CODE = 599;
+
+    //Copy-on-write so that lookups never lock
+    private static volatile String[] phrases = new String[MAX_CODE + 1];
+
+    static {
+        register(100, "Continue");
+        register(101, "Switching Protocols");
+        register(103, "Checkpoint");
+        register(200, "OK");
+        register(201, "Created");
+        register(202, "Accepted");
+        register(203, "Non-Authoritative Information");
+        register(204, "No Content");
+        register(205, "Reset Content");
+        register(206, "Partial Content");
+        register(300, "Multiple Choices");
+        register(301, "Moved Permanently");
+        register(302, "Found");
+        register(303, "See Other");
+        register(304, "Not Modified");
+        register(306, "Switch Proxy");
+        register(307, "Temporary Redirect");
+        register(308, "Resume Incomplete");
+        register(400, "Bad Request");
+        register(401, "Unauthorized");
+        register(402, "Payment Required");
+        register(403, "Forbidden");
+        register(404, "Not Found");
+        register(405, "Method Not Allowed");
+        register(406, "Not Acceptable");
+        register(407, "Proxy Authentication Required");
+        register(408, "Request Timeout");
+        register(409, "Conflict");
+        register(410, "Gone");
+        register(411, "Length Required");
+        register(412, "Precondition Failed");
+        register(413, "Request Entity Too Large");
+        register(414, "Request-URI Too Long");
+        register(415, "Unsupported Media Type");
+        register(416, "Requested Range Not Satisfiable");
+        register(417, "Expectation Failed");
+        register(500, "Internal Server Error");
+        register(501, "Not Implemented");
+        register(502, "Bad Gateway");
+        register(503, "Service Unavailable");
+        register(504, "Gateway Timeout");
+        register(505, "HTTP Version Not Supported");
+        register(511, "Network Authentication Required");
+
+        loadConfiguration();
+    }
+
+    private ResponseCodes() {
+    }
+
+    //Register (or override) the reason phrase of a status code
+    static synchronized void register(int code, String phrase) {
+        if (code < MIN_CODE || code > MAX_CODE) {
+            throw new IllegalArgumentException("Response code out of range: " + code);
+        }
+
+        String[] copy = phrases.clone();
+        copy[code] = phrase;
+        phrases = copy;
+    }
+
+    //Return the reason phrase of a status code, null if unknown
+    static String reasonPhrase(int code) {
+        return code < MIN_CODE || code > MAX_CODE ? null : phrases[code];
+    }
+
+    //Return the reason phrase of a status code given as a RAML response key, null if unknown
+    static String reasonPhrase(String key) {
+        return reasonPhrase(parse(key));
+    }
+
+    /*
+       Parse a RAML response key. The keys are always three digits, so they are decoded straight from the chars: this
+       is cheaper than any cache lookup, as hashing the key would already read all of them.
+       Returns -1 if the key is not a three digit code.
+     */
+    static int parse(String key) {
+        if (key == null || key.length() != 3) {
+            return -1;
+        }
+
+        int code = 0;
+        for (int i = 0; i < 3; i++) {
+            int digit = key.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            code = code * 10 + digit;
+        }
+        return code;
+    }
+
+    //Read all the response code configuration files from the classpath
+    private static void loadConfiguration() {
+        try {
+            ClassLoader classLoader = ResponseCodes.class.getClassLoader();
+            Enumeration<URL> resources = classLoader.getResources(CONFIG_RESOURCE);
+            while (resources.hasMoreElements()) {
+                URL url = resources.nextElement();
+                Properties properties = new Properties();
+                try (InputStream input = url.openStream()) {
+                    properties.load(input);
+                }
+
+                for (String name : properties.stringPropertyNames()) {
+                    int code = parse(name.trim());
+                    if (code < MIN_CODE || code > MAX_CODE) {
+                        LOGGER.warn("Invalid response code '{}' in {}", name, url);
+                        continue;
+                    }
+                    register(code, properties.getProperty(name).trim());
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Error reading response code configuration", e);
+        }
+    }
+}
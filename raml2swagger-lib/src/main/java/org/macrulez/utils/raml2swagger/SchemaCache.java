@@ -0,0 +1,99 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Referenced schema documents, parsed and cleaned, shared by the conversions of a converter. The least recently used
+ * documents are evicted once their total size exceeds the limit.
+ * <p>
+ * The documents are kept by their URL only, so the conversions sharing a cache must fetch the same document for the
+ * same URL. The trees are never modified, the conversions work on copies of them.
+ */
+final class SchemaCache {
+    //Total size of the documents of a cache, in chars of their text
+    private static final long DEFAULT_SIZE = 16 << 20;
+
+    private static class Holder {
+        private static final SchemaCache SHARED = new SchemaCache(DEFAULT_SIZE);
+    }
+
+    private final long maxSize;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    SchemaCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    SchemaCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    //A cache for all the conversions of the JVM, for the ones which resolve every URL through the same loaders
+    static SchemaCache shared() {
+        return Holder.SHARED;
+    }
+
+    synchronized JSONObject get(String name) {
+        Entry entry = entries.get(name);
+        return entry == null ? null : entry.schema;
+    }
+
+    //Cache the document, its size is the length of its text
+    synchronized void put(String name, JSONObject schema, long size) {
+        if (size > maxSize) {
+            return;
+        }
+
+        Entry previous = entries.put(name, new Entry(schema, size));
+        this.size += size - (previous == null ? 0 : previous.size);
+
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (this.size > maxSize) {
+            this.size -= iterator.next().size;
+            iterator.remove();
+        }
+    }
+
+    synchronized int count() {
+        return entries.size();
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    private static class Entry {
+        private final JSONObject schema;
+        private final long size;
+
+        Entry(JSONObject schema, long size) {
+            this.schema = schema;
+            this.size = size;
+        }
+    }
+}
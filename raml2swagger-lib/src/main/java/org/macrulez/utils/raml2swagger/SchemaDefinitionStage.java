@@ -0,0 +1,100 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Built-in stage turning a draft 3 JSON schema into a Swagger definition: the boolean "required" flags of the
+ * properties become the "required" array of the definition.
+ */
+final class SchemaDefinitionStage implements TransformationStage {
+
+    @Override
+    public JSONObject definition(String name, JSONObject definition, TransformationContext context) throws JSONException {
+        return toDefinition(definition);
+    }
+
+    /*
+       Convert a single schema to a definition in one pass over the parsed schema: the names of the required properties
+       are collected, the nested "required" flags are stripped and the type is recorded. The nested objects are walked
+       with an explicit stack. Jettison still parses and writes the schema recursively, its depth is limited by
+       JsonText.MAX_NESTING while it is parsed.
+     */
+    static JSONObject toDefinition(JSONObject schema) throws JSONException {
+        //Collection for every field
+        JSONObject coll = new JSONObject();
+
+        //JSONObject containing names of "Required" fields
+        JSONArray reqArr = new JSONArray();
+
+        JSONObject propObj = schema.optJSONObject("properties");
+        if (propObj != null) {
+            Deque<JSONObject> stack = new ArrayDeque<>();
+
+            //Iterate through all the properties and get required names
+            Iterator<?> keys = propObj.keys();
+            while (keys.hasNext()) {
+                String key = keys.next().toString();
+                Object property = propObj.get(key);
+                if (!(property instanceof JSONObject)) {
+                    throw new JSONException("Property " + key + " is not a JSON object");
+                }
+                if ("true".equals(String.valueOf(((JSONObject) property).opt("required")))) {
+                    reqArr.put(key);
+                }
+                stack.push((JSONObject) property);
+            }
+
+            //Remove all the required flags below the properties
+            while (!stack.isEmpty()) {
+                JSONObject jObj = stack.pop();
+                if (jObj.has("required") && !(jObj.get("required") instanceof JSONObject)) {
+                    jObj.remove("required");
+                }
+
+                Iterator<?> children = jObj.keys();
+                while (children.hasNext()) {
+                    Object child = jObj.get(children.next().toString());
+                    if (child instanceof JSONObject) {
+                        stack.push((JSONObject) child);
+                    }
+                }
+            }
+            coll.put("properties", propObj);
+        }
+
+        if (reqArr.length() > 0) {
+            coll.put("required", reqArr);
+        }
+
+        //Put the type of the resource
+        coll.put("type", schema.getString("type"));
+
+        return coll;
+    }
+}
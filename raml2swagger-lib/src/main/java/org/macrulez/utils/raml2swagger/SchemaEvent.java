@@ -0,0 +1,55 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder event of the parsing of one schema, a definition or an inline one.
+ */
+@Name("org.macrulez.raml2swagger.Schema")
+@Label("Schema Parse")
+@Category({"RAML to Swagger"})
+@StackTrace(false)
+class SchemaEvent extends Event implements ConversionEvents.Schema {
+    //Name of the definition, or the resource, action and response of an inline schema
+    @Label("Name")
+    String name;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    static SchemaEvent start() {
+        SchemaEvent event = new SchemaEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void end(String name, long size) {
+        if (shouldCommit()) {
+            this.name = name;
+            this.size = size;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.raml.parser.loader.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Resolves the <code>$ref</code>s of the schemas of one conversion which point to other schema documents, fetched
+ * through the resource loader of the conversion.
+ * <p>
+ * The references of the schemas of the spec are relative to the spec, the ones of a referenced document relative to
+ * that document, where a reference to a fragment only (<code>#/definitions/item</code>) points into the document
+ * itself. A reference naming one of the schemas of the spec points to its definition. References which can not be
+ * resolved are reported as warnings and kept as they are.
+ * <p>
+ * Documents at an absolute URL are kept in the {@link SchemaCache} of the converter across its conversions. Relative
+ * names and files can mean another document in the next conversion, so they are only fetched once per conversion.
+ */
+@Slf4j
+final class SchemaRefResolver implements Constants {
+    private static final String DEFINITION_REFERENCE = "#/definitions/";
+
+    //Top level keys of a document which describe the document, not the schema
+    private static final String[] DOCUMENT_KEYS = {"$schema", "id"};
+
+    private final ResourceLoader loader;
+    private final RefResolution mode;
+    private final SchemaCache cache;
+    private final ConversionReport report;
+
+    //Names of the definitions of the spec
+    private final Set<String> definitionNames;
+
+    //Documents fetched during this conversion, null if they were not found or not valid
+    private final Map<String, JSONObject> documents = new HashMap<>();
+
+    //Definitions of the referenced schemas by the key of their reference, and the definitions in the order found
+    private final Map<String, String> liftedNames = new HashMap<>();
+    @Getter
+    private final Map<String, JSONObject> lifted = new LinkedHashMap<>();
+
+    //Keys of the references being inlined, a reference to one of them is a cycle
+    private final Set<String> inlining = new HashSet<>();
+
+    SchemaRefResolver(ResourceLoader loader, RefResolution mode, SchemaCache cache, ConversionReport report, Set<String> definitionNames) {
+        this.loader = loader;
+        this.mode = mode;
+        this.cache = cache;
+        this.report = report;
+        this.definitionNames = definitionNames;
+    }
+
+    //Resolve the references of a schema of the spec, modifying it in place
+    JSONObject resolve(JSONObject schema) throws JSONException {
+        return resolve(schema, null);
+    }
+
+    //The resolved tree of a document, null for a schema of the spec
+    private JSONObject resolve(JSONObject object, String document) throws JSONException {
+        Object ref = object.opt(REFERENCE_PARAM_KEY);
+        if (ref instanceof String) {
+            JSONObject target = reference(object, (String) ref, document);
+            if (target != null) {
+                return target;
+            }
+        }
+
+        for (String key : keys(object)) {
+            object.put(key, resolveValue(object.get(key), document));
+        }
+        return object;
+    }
+
+    private Object resolveValue(Object value, String document) throws JSONException {
+        if (value instanceof JSONObject) {
+            return resolve((JSONObject) value, document);
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            for (int i = 0; i < array.length(); i++) {
+                array.put(i, resolveValue(array.get(i), document));
+            }
+        }
+        return value;
+    }
+
+    //The object replacing the reference, null to keep it as it is
+    private JSONObject reference(JSONObject object, String ref, String document) throws JSONException {
+        int index = ref.indexOf('#');
+        String path = index < 0 ? ref : ref.substring(0, index);
+        String pointer = index < 0 ? "" : ref.substring(index + 1);
+
+        String name;
+        if (path.isEmpty()) {
+            //Fragments of the schemas of the spec point into the output, which they are already part of
+            if (document == null) {
+                return null;
+            }
+            name = document;
+        } else if (document == null && pointer.isEmpty() && definitionNames.contains(path)) {
+            object.put(REFERENCE_PARAM_KEY, DEFINITION_REFERENCE + path);
+            return object;
+        } else {
+            name = resolveName(document, path);
+        }
+        String key = pointer.isEmpty() ? name : name + "#" + pointer;
+
+        if (mode == RefResolution.DEFINITIONS || inlining.contains(key)) {
+            if (mode == RefResolution.INLINE && !liftedNames.containsKey(key)) {
+                report.warning(null, null, key, "Schema reference " + ref + " is cyclic, its schema is put into the definitions");
+            }
+            String definition = lift(key, name, pointer);
+            if (definition == null) {
+                return null;
+            }
+            object.put(REFERENCE_PARAM_KEY, DEFINITION_REFERENCE + definition);
+            return object;
+        }
+
+        JSONObject target = target(name, pointer, ref);
+        if (target == null) {
+            return null;
+        }
+
+        inlining.add(key);
+        try {
+            target = resolve(target, name);
+        } finally {
+            inlining.remove(key);
+        }
+
+        //The other keys of the reference, such as its description, are kept
+        for (String sibling : keys(object)) {
+            if (!REFERENCE_PARAM_KEY.equals(sibling) && !target.has(sibling)) {
+                target.put(sibling, object.get(sibling));
+            }
+        }
+        return target;
+    }
+
+    //Name of the definition of the referenced schema, null if it can not be resolved
+    private String lift(String key, String name, String pointer) throws JSONException {
+        String definition = liftedNames.get(key);
+        if (definition != null) {
+            return definition;
+        }
+
+        JSONObject target = target(name, pointer, key);
+        if (target == null) {
+            return null;
+        }
+
+        //Named before it is resolved, so the references back to it end here
+        definition = definitionName(name, pointer);
+        liftedNames.put(key, definition);
+        lifted.put(definition, resolve(target, name));
+        return definition;
+    }
+
+    //A copy of the referenced schema, null if it can not be resolved
+    private JSONObject target(String name, String pointer, String ref) throws JSONException {
+        Object target = document(name);
+        if (target == null) {
+            return null;
+        }
+
+        for (String token : pointer.split("/")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            token = token.replace("~1", "/").replace("~0", "~");
+            if (target instanceof JSONObject) {
+                target = ((JSONObject) target).opt(token);
+            } else if (target instanceof JSONArray && token.matches("\\d+")) {
+                target = ((JSONArray) target).opt(Integer.parseInt(token));
+            } else {
+                target = null;
+            }
+        }
+
+        if (!(target instanceof JSONObject)) {
+            report.warning(null, null, ref, "Schema reference " + ref + " does not point to a schema");
+            return null;
+        }
+        return (JSONObject) copy(target);
+    }
+
+    private JSONObject document(String name) {
+        if (documents.containsKey(name)) {
+            return documents.get(name);
+        }
+
+        boolean shared = isShared(name);
+        JSONObject document = shared ? cache.get(name) : null;
+        if (document == null) {
+            String text = fetch(name);
+            document = text == null ? null : parse(name, text);
+            if (document != null && shared) {
+                cache.put(name, document, text.length());
+            }
+        }
+        documents.put(name, document);
+        return document;
+    }
+
+    private String fetch(String name) {
+        InputStream input = loader.fetchResource(name);
+        if (input == null) {
+            report.warning(null, null, name, "Referenced schema " + name + " not found");
+            return null;
+        }
+
+        try (InputStream in = input) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.debug("Error reading {}", name, e);
+            report.warning(null, null, name, "Referenced schema " + name + " could not be read");
+            return null;
+        }
+    }
+
+    private JSONObject parse(String name, String text) {
+        try {
+            JSONObject document = JsonText.parse(text);
+            for (String key : DOCUMENT_KEYS) {
+                document.remove(key);
+            }
+            return document;
+        } catch (JSONException e) {
+            report.warning(null, null, name, "Referenced schema " + name + " is not a valid JSON object");
+            return null;
+        }
+    }
+
+    //Definition named after the document and the last token of the pointer, unique in the output
+    private String definitionName(String name, String pointer) {
+        String base = name.substring(name.lastIndexOf('/') + 1);
+        int index = base.lastIndexOf('.');
+        if (index > 0) {
+            base = base.substring(0, index);
+        }
+        if (!pointer.isEmpty()) {
+            base += "_" + pointer.substring(pointer.lastIndexOf('/') + 1);
+        }
+        base = base.replaceAll("[^A-Za-z0-9_.-]", "_");
+
+        String definition = base;
+        for (int i = 2; definitionNames.contains(definition) || liftedNames.containsValue(definition); i++) {
+            definition = base + "_" + i;
+        }
+        return definition;
+    }
+
+    //The name of a reference relative to the document it is in
+    private static String resolveName(String document, String path) {
+        if (document == null) {
+            return path;
+        }
+        try {
+            return new URI(document).resolve(new URI(path)).toString();
+        } catch (URISyntaxException e) {
+            return path;
+        }
+    }
+
+    //Absolute URLs other than files always name the same document
+    private static boolean isShared(String name) {
+        try {
+            URI uri = new URI(name);
+            return uri.isAbsolute() && !"file".equalsIgnoreCase(uri.getScheme());
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    private static List<String> keys(JSONObject object) {
+        List<String> keys = new ArrayList<>(object.length());
+        for (Iterator<?> iterator = object.keys(); iterator.hasNext(); ) {
+            keys.add(iterator.next().toString());
+        }
+        return keys;
+    }
+
+    private static Object copy(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            JSONObject copy = new JSONObject();
+            for (String key : keys(object)) {
+                copy.put(key, copy(object.get(key)));
+            }
+            return copy;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            JSONArray copy = new JSONArray();
+            for (int i = 0; i < array.length(); i++) {
+                copy.put(copy(array.get(i)));
+            }
+            return copy;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,567 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingJsonFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang.StringUtils;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.raml.parser.loader.CompositeResourceLoader;
+import org.raml.parser.loader.FileResourceLoader;
+import org.raml.parser.loader.ResourceLoader;
+import org.raml.parser.loader.UrlResourceLoader;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Converts several RAML specs in parallel and merges them into a single Swagger document.
+ * <p>
+ * The <code>paths</code>, <code>definitions</code> and <code>securityDefinitions</code> of the specs are merged in
+ * the order the specs are given, conflicting entries are handled according to the {@link ConflictPolicy}. If the specs
+ * have different base paths, the merged base path is <code>/</code> and every path gets the base path of its spec. The
+ * merged document is streamed to a writer, it is never built as a whole in memory.
+ */
+@Slf4j
+class SwaggerMerger implements Constants {
+    //Mapping factory, the scalar values are written as trees
+    private static final JsonFactory JSON_FACTORY = new MappingJsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    private static final String DEFINITION_REFERENCE = "#/definitions/";
+    //Two spaces and a line feed whatever the platform, like the single conversions. Stateful, copied for every document
+    private static final DefaultPrettyPrinter PRETTY_PRINTER = new DefaultPrettyPrinter().withObjectIndenter(new DefaultIndenter("  ", "\n"));
+
+    @Setter
+    private ConflictPolicy conflictPolicy = ConflictPolicy.PREFIX;
+
+    //Passed on to the conversion of every spec
+    @Setter
+    private ValidationMode validationMode = ValidationMode.NONE;
+    @Setter
+    private boolean outputValidation;
+    @Setter
+    private boolean rawJsonPassthrough;
+    @Setter
+    private Charset charset = StandardCharsets.UTF_8;
+    @Setter
+    private boolean stringInterning = true;
+    @Setter
+    private TransformationPipeline pipeline = TransformationPipeline.standard();
+    @Setter
+    private ConversionLimits limits = ConversionLimits.NONE;
+    @Setter
+    private Executor prefetchExecutor;
+    @Setter
+    private RefResolution refResolution = RefResolution.NONE;
+    @Setter
+    private SchemaCache schemaCache = new SchemaCache();
+
+    //Order of the keys in the merged document
+    @Setter
+    private OutputOrder outputOrder = OutputOrder.SOURCE;
+
+    //Runs the conversions
+    @Setter
+    private Executor executor = ForkJoinPool.commonPool();
+
+    //Title and version of the merged document, the ones of the first spec if not set
+    @Setter
+    private String title;
+    @Setter
+    private String version;
+
+    //Diagnostics of the last merge, including the ones of every conversion
+    @Getter
+    private ConversionReport report;
+
+    /**
+     * A RAML spec to merge. The name is used in the diagnostics and to prefix conflicting entries.
+     */
+    @Value
+    static class Source {
+        String name;
+        Input input;
+        ResourceLoader resourceLoader;
+
+        //Opens the spec, bytes are decoded with the charset of the merger
+        interface Input {
+            Reader open(Charset charset) throws IOException;
+        }
+
+        static Source of(String name, String raml, ResourceLoader resourceLoader) {
+            return new Source(name, charset -> new StringReader(raml), resourceLoader);
+        }
+
+        //Spec read from a file, includes are resolved relative to its directory
+        static Source of(File file) {
+            String name = file.getName();
+            int index = name.lastIndexOf('.');
+            if (index > 0) {
+                name = name.substring(0, index);
+            }
+
+            File directory = file.getAbsoluteFile().getParentFile();
+            return new Source(name.replaceAll("[^A-Za-z0-9_-]", "_"), charset -> ChannelReader.open(FileChannel.open(file.toPath(), StandardOpenOption.READ), charset),
+                    new CompositeResourceLoader(new UrlResourceLoader(), new FileResourceLoader(directory)));
+        }
+    }
+
+    /**
+     * The merged entries, ready to be written.
+     */
+    class Merged {
+        private final List<JSONObject> specs;
+        private final Map<String, Object> paths = new LinkedHashMap<>();
+        private final Map<String, Object> definitions = new LinkedHashMap<>();
+        private final Map<String, Object> securityDefinitions = new LinkedHashMap<>();
+        private String basePath;
+
+        private Merged(List<JSONObject> specs) {
+            this.specs = specs;
+        }
+
+        //Stream the merged document to the writer, which is left open
+        void write(Writer output) throws IOException {
+            JSONObject first = specs.get(0);
+            JSONObject info = first.optJSONObject(API_INFO_PARAM_KEY);
+
+            //The top level entries, the sections are written entry by entry
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put(SWAGGERVERSION_PARAM_KEY, SWAGGERVERSION_PARAM_VALUE);
+
+            Map<String, Object> mergedInfo = new LinkedHashMap<>();
+            String infoTitle = title != null ? title : info == null ? null : info.optString(API_TITLE_PARAM_KEY, null);
+            String infoVersion = version != null ? version : info == null ? null : info.optString(API_VERSION_PARAM_KEY, null);
+            if (infoTitle != null) {
+                mergedInfo.put(API_TITLE_PARAM_KEY, infoTitle);
+            }
+            if (infoVersion != null) {
+                mergedInfo.put(API_VERSION_PARAM_KEY, infoVersion);
+            }
+            document.put(API_INFO_PARAM_KEY, mergedInfo);
+
+            //The host is only kept if all the specs agree on it
+            Set<String> hosts = specs.stream().map(s -> s.optString(API_HOST_PARAM_KEY, null)).collect(Collectors.toSet());
+            if (hosts.size() == 1 && !hosts.contains(null)) {
+                document.put(API_HOST_PARAM_KEY, hosts.iterator().next());
+            }
+            document.put(PATH_PARAM_KEY, basePath);
+
+            Set<String> schemes = new LinkedHashSet<>();
+            for (JSONObject spec : specs) {
+                JSONArray array = spec.optJSONArray(SCHEMES_PARAM_KEY);
+                for (int i = 0; array != null && i < array.length(); i++) {
+                    schemes.add(array.optString(i));
+                }
+            }
+            if (!schemes.isEmpty()) {
+                document.put(SCHEMES_PARAM_KEY, new JSONArray(schemes));
+            }
+
+            document.put(PATHSVARIABLE_PARAM_KEY, paths);
+            document.put(API_DEFINITION_PARAM_KEY, definitions);
+            if (!securityDefinitions.isEmpty()) {
+                document.put(SECDEF_PARAM_KEY, securityDefinitions);
+            }
+
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+                generator.setPrettyPrinter(PRETTY_PRINTER.createInstance());
+                writeEntries(generator, document);
+            }
+            output.flush();
+        }
+
+        String toJson() {
+            StringWriter output = new StringWriter();
+            try {
+                write(output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return output.toString();
+        }
+
+        //Write the entries as an object, in the output order
+        @SuppressWarnings("unchecked")
+        private void writeEntries(JsonGenerator generator, Map<String, Object> entries) throws IOException {
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> entry : (outputOrder == OutputOrder.SORTED ? new TreeMap<>(entries) : entries).entrySet()) {
+                generator.writeFieldName(entry.getKey());
+                if (entry.getValue() instanceof Map) {
+                    writeEntries(generator, (Map<String, Object>) entry.getValue());
+                } else {
+                    writeValue(generator, entry.getValue());
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        //Write a Jettison value, raw JSON is written as it is
+        private void writeValue(JsonGenerator generator, Object value) throws IOException {
+            try {
+                if (value == null || value == JSONObject.NULL) {
+                    generator.writeNull();
+                } else if (value instanceof RawJson) {
+                    generator.writeRawValue(((RawJson) value).toJSONString());
+                } else if (value instanceof JSONObject) {
+                    JSONObject jsonObject = (JSONObject) value;
+                    generator.writeStartObject();
+                    Iterator<?> keys = jsonObject.keys();
+                    while (keys.hasNext()) {
+                        String key = keys.next().toString();
+                        generator.writeFieldName(key);
+                        writeValue(generator, jsonObject.get(key));
+                    }
+                    generator.writeEndObject();
+                } else if (value instanceof JSONArray) {
+                    JSONArray jsonArray = (JSONArray) value;
+                    generator.writeStartArray();
+                    for (int i = 0; i < jsonArray.length(); i++) {
+                        writeValue(generator, jsonArray.get(i));
+                    }
+                    generator.writeEndArray();
+                } else {
+                    generator.writeTree(SwaggerValidator.toJsonNode(value));
+                }
+            } catch (JSONException e) {
+                throw new IllegalStateException("Inconsistent JSON tree", e);
+            }
+        }
+    }
+
+    //Convert and merge the specs, null if any of them failed to convert or a conflict failed the merge
+    Merged merge(List<Source> sources) {
+        report = new ConversionReport(validationMode);
+        if (sources.isEmpty()) {
+            report.error(null, null, null, "Nothing to merge", null);
+            return null;
+        }
+
+        List<CompletableFuture<JSONObject>> conversions = new ArrayList<>();
+        for (Source source : sources) {
+            conversions.add(CompletableFuture.supplyAsync(() -> convert(source), executor));
+        }
+
+        List<JSONObject> specs = new ArrayList<>();
+        for (CompletableFuture<JSONObject> conversion : conversions) {
+            specs.add(conversion.join());
+        }
+        if (specs.contains(null) || report.isStopped()) {
+            LOGGER.error("Merge failed:\n{}", report);
+            return null;
+        }
+
+        Merged merged = new Merged(specs);
+        Set<String> basePaths = specs.stream().map(s -> s.optString(PATH_PARAM_KEY, "/")).collect(Collectors.toSet());
+        merged.basePath = basePaths.size() == 1 ? basePaths.iterator().next() : "/";
+
+        boolean failed = false;
+        try {
+            for (int i = 0; i < specs.size(); i++) {
+                failed |= !mergeSpec(sources.get(i).getName(), specs.get(i), basePaths.size() > 1, merged);
+            }
+        } catch (JSONException e) {
+            report.error(null, null, null, "Error merging the specs", e);
+            failed = true;
+        }
+
+        if (failed || report.isStopped()) {
+            LOGGER.error("Merge failed:\n{}", report);
+            return null;
+        }
+        return merged;
+    }
+
+    private JSONObject convert(Source source) {
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setValidationMode(validationMode);
+        converter.setOutputValidation(outputValidation);
+        converter.setRawJsonPassthrough(rawJsonPassthrough);
+        converter.setCharset(charset);
+        converter.setStringInterning(stringInterning);
+        converter.setPipeline(pipeline);
+        converter.setLimits(limits);
+        converter.setPrefetchExecutor(prefetchExecutor);
+        converter.setRefResolution(refResolution);
+        converter.setSchemaCache(schemaCache);
+
+        JSONObject spec;
+        try (Reader input = source.getInput().open(charset)) {
+            spec = converter.convertToTree(input, source.getResourceLoader());
+            spec = spec == null ? null : outputOrder.apply(spec);
+        } catch (Exception e) {
+            report.error(null, null, null, "Error converting " + source.getName(), e);
+            return null;
+        }
+
+        for (Diagnostic diagnostic : converter.getReport().getDiagnostics()) {
+            report.add(new Diagnostic(diagnostic.getSeverity(), diagnostic.getResource(), diagnostic.getAction(),
+                    diagnostic.getSchema(), source.getName() + ": " + diagnostic.getMessage(), diagnostic.getCause()));
+        }
+        if (spec == null) {
+            report.error(null, null, null, "Error converting " + source.getName(), null);
+        }
+        return spec;
+    }
+
+    //Merge the entries of one spec, false if a conflict failed the merge
+    private boolean mergeSpec(String name, JSONObject spec, boolean prefixBasePath, Merged merged) throws JSONException {
+        String basePath = spec.optString(PATH_PARAM_KEY, "/");
+        String pathPrefix = prefixBasePath && !"/".equals(basePath) ? StringUtils.removeEnd(basePath, "/") : "";
+
+        Map<String, String> definitionNames = new LinkedHashMap<>();
+        Map<String, String> securityNames = new LinkedHashMap<>();
+        Map<String, String> pathNames = new LinkedHashMap<>();
+
+        //The definitions are compared with their references already pointing to the renamed definitions
+        Map<String, String> prefixed = prefixedDefinitions(name, spec.optJSONObject(API_DEFINITION_PARAM_KEY), merged.definitions);
+        boolean resolved = resolve(name, "Definition", spec.optJSONObject(API_DEFINITION_PARAM_KEY), merged.definitions,
+                key -> key, key -> name + "_" + key, value -> renameReferences(SwaggerValidator.toJsonNode(value), prefixed), definitionNames);
+        resolved &= resolve(name, "Security definition", spec.optJSONObject(SECDEF_PARAM_KEY), merged.securityDefinitions,
+                key -> key, key -> name + "_" + key, SwaggerValidator::toJsonNode, securityNames);
+        if (!resolved) {
+            return false;
+        }
+
+        //Point the references of the spec to the renamed entries, before its paths are compared to the merged ones
+        Map<String, String> renamedDefinitions = renamed(definitionNames);
+        Map<String, String> renamedSecurity = renamed(securityNames);
+        if (!renamedDefinitions.isEmpty() || !renamedSecurity.isEmpty()) {
+            rename(spec, renamedDefinitions, renamedSecurity);
+        }
+
+        if (!resolve(name, "Path", spec.optJSONObject(PATHSVARIABLE_PARAM_KEY), merged.paths,
+                key -> pathPrefix + key, key -> "/" + name + key, SwaggerValidator::toJsonNode, pathNames)) {
+            return false;
+        }
+
+        put(spec.optJSONObject(API_DEFINITION_PARAM_KEY), definitionNames, merged.definitions);
+        put(spec.optJSONObject(SECDEF_PARAM_KEY), securityNames, merged.securityDefinitions);
+        put(spec.optJSONObject(PATHSVARIABLE_PARAM_KEY), pathNames, merged.paths);
+        return true;
+    }
+
+    /*
+       The definitions of a spec which are prefixed because they differ from the merged ones. A definition equal to a
+       merged one but for a reference to a prefixed definition differs too, its references would point elsewhere.
+     */
+    private Map<String, String> prefixedDefinitions(String name, JSONObject entries, Map<String, Object> merged) throws JSONException {
+        Map<String, String> prefixed = new HashMap<>();
+        if (entries == null || conflictPolicy != ConflictPolicy.PREFIX) {
+            return prefixed;
+        }
+
+        boolean changed;
+        do {
+            changed = false;
+            Iterator<?> keys = entries.keys();
+            while (keys.hasNext()) {
+                String key = keys.next().toString();
+                if (!prefixed.containsKey(key) && merged.containsKey(key)
+                        && !same(merged.get(key), renameReferences(SwaggerValidator.toJsonNode(entries.get(key)), prefixed))) {
+                    prefixed.put(key, name + "_" + key);
+                    changed = true;
+                }
+            }
+        } while (changed);
+        return prefixed;
+    }
+
+    /*
+       Decide the merged name of every entry of a section of a spec. Entries equal to the ones already merged are left
+       out of the names, they are compared as the view of the spec entry. Returns false if a conflict failed the merge.
+     */
+    private boolean resolve(String name, String section, JSONObject entries, Map<String, Object> merged,
+                            Function<String, String> mergedKey, Function<String, String> prefixedKey,
+                            Function<Object, JsonNode> view, Map<String, String> names) throws JSONException {
+        if (entries == null) {
+            return true;
+        }
+
+        boolean resolved = true;
+        Iterator<?> keys = entries.keys();
+        while (keys.hasNext()) {
+            String key = keys.next().toString();
+            JsonNode value = view.apply(entries.get(key));
+            String target = mergedKey.apply(key);
+
+            if (!merged.containsKey(target)) {
+                names.put(key, target);
+                continue;
+            }
+            if (same(merged.get(target), value)) {
+                continue;
+            }
+
+            switch (conflictPolicy) {
+                case FAIL:
+                    conflict(section, target, section + " '" + target + "' of " + name + " conflicts with an earlier spec", true);
+                    resolved = false;
+                    break;
+
+                case LAST_WINS:
+                    conflict(section, target, section + " '" + target + "' of " + name + " replaces the one of an earlier spec", false);
+                    names.put(key, target);
+                    break;
+
+                case PREFIX:
+                    String prefixed = prefixedKey.apply(target);
+                    if (merged.containsKey(prefixed) && !same(merged.get(prefixed), value)) {
+                        conflict(section, target, section + " '" + target + "' of " + name + " conflicts with an earlier spec, also as '" + prefixed + "'", true);
+                        resolved = false;
+                    } else {
+                        conflict(section, target, section + " '" + target + "' of " + name + " renamed to '" + prefixed + "'", false);
+                        names.put(key, prefixed);
+                    }
+                    break;
+            }
+        }
+        return resolved;
+    }
+
+    private void conflict(String section, String key, String message, boolean error) {
+        String resource = "Path".equals(section) ? key : null;
+        String schema = "Definition".equals(section) ? key : null;
+        if (error) {
+            report.error(resource, null, schema, message, null);
+        } else {
+            report.warning(resource, null, schema, message);
+        }
+    }
+
+    //Entries of two specs are the same if their JSON is, whatever the key order
+    private static boolean same(Object merged, JsonNode value) {
+        return SwaggerValidator.toJsonNode(merged).equals(value);
+    }
+
+    //Point the definition references of a copied tree to the renamed definitions
+    private static JsonNode renameReferences(JsonNode node, Map<String, String> definitions) {
+        if (definitions.isEmpty()) {
+            return node;
+        }
+
+        if (node.isObject()) {
+            ObjectNode objectNode = (ObjectNode) node;
+            Iterator<Map.Entry<String, JsonNode>> fields = objectNode.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                String reference = field.getValue().textValue();
+                if (REFERENCE_PARAM_KEY.equals(field.getKey()) && reference != null && reference.startsWith(DEFINITION_REFERENCE)) {
+                    String target = definitions.get(reference.substring(DEFINITION_REFERENCE.length()));
+                    if (target != null) {
+                        field.setValue(TextNode.valueOf(DEFINITION_REFERENCE + target));
+                    }
+                } else {
+                    renameReferences(field.getValue(), definitions);
+                }
+            }
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                renameReferences(element, definitions);
+            }
+        }
+        return node;
+    }
+
+    private static Map<String, String> renamed(Map<String, String> names) {
+        Map<String, String> renamed = new HashMap<>();
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            if (!entry.getKey().equals(entry.getValue())) {
+                renamed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return renamed;
+    }
+
+    private static void put(JSONObject entries, Map<String, String> names, Map<String, Object> merged) throws JSONException {
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            merged.put(entry.getValue(), entries.get(entry.getKey()));
+        }
+    }
+
+    //Rewrite the definition references and the security requirements of a tree to the renamed entries
+    private static void rename(Object value, Map<String, String> definitions, Map<String, String> security) throws JSONException {
+        if (value instanceof JSONObject) {
+            JSONObject jsonObject = (JSONObject) value;
+            Iterator<?> keys = jsonObject.keys();
+            while (keys.hasNext()) {
+                String key = keys.next().toString();
+                Object child = jsonObject.get(key);
+
+                if (REFERENCE_PARAM_KEY.equals(key) && child instanceof String && ((String) child).startsWith(DEFINITION_REFERENCE)) {
+                    String target = definitions.get(((String) child).substring(DEFINITION_REFERENCE.length()));
+                    if (target != null) {
+                        jsonObject.put(key, DEFINITION_REFERENCE + target);
+                    }
+                } else if (SECURITY_PARAM_KEY.equals(key) && child instanceof JSONArray) {
+                    JSONArray requirements = (JSONArray) child;
+                    for (int i = 0; i < requirements.length(); i++) {
+                        renameKeys(requirements.optJSONObject(i), security);
+                    }
+                } else {
+                    rename(child, definitions, security);
+                }
+            }
+        } else if (value instanceof JSONArray) {
+            JSONArray jsonArray = (JSONArray) value;
+            for (int i = 0; i < jsonArray.length(); i++) {
+                rename(jsonArray.get(i), definitions, security);
+            }
+        }
+    }
+
+    private static void renameKeys(JSONObject jsonObject, Map<String, String> names) throws JSONException {
+        if (jsonObject == null) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>();
+        Iterator<?> iterator = jsonObject.keys();
+        while (iterator.hasNext()) {
+            keys.add(iterator.next().toString());
+        }
+        for (String key : keys) {
+            if (names.containsKey(key)) {
+                jsonObject.put(names.get(key), jsonObject.remove(key));
+            }
+        }
+    }
+}
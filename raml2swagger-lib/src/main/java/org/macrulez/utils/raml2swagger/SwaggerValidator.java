@@ -0,0 +1,210 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.JsonMetaSchema;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.NonValidationKeyword;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Validates conversion output against the Swagger 2.0 JSON schema bundled with the library.
+ * <p>
+ * The schema is self-contained, so validation never goes to the network. It is compiled once per JVM on first use and
+ * the compiled validator is shared by every conversion and thread.
+ */
+final class SwaggerValidator implements Constants {
+    static final String SCHEMA_RESOURCE = "/schemas/swagger-2.0.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Set<String> ACTIONS = new HashSet<>(Arrays.asList("get", "put", "post", "delete", "options", "head", "patch"));
+
+    //Lazily compiled by the class loader, which also makes it safely published to every thread
+    private static class Holder {
+        private static final JsonSchema SCHEMA = compile();
+    }
+
+    private SwaggerValidator() {
+    }
+
+    private static JsonSchema compile() {
+        try (InputStream input = SwaggerValidator.class.getResourceAsStream(SCHEMA_RESOURCE)) {
+            /*
+               Draft 4 checks these keywords from their siblings: exclusiveMinimum from minimum, additionalItems from
+               the items array. They have no validator of their own, so without this they are reported as unknown.
+             */
+            JsonMetaSchema v4 = JsonMetaSchema.getV4();
+            JsonMetaSchema metaSchema = JsonMetaSchema.builder(v4.getUri(), v4)
+                    .addKeywords(Arrays.asList(new NonValidationKeyword("exclusiveMinimum"), new NonValidationKeyword("additionalItems")))
+                    .build();
+            JsonSchemaFactory factory = JsonSchemaFactory.builder(JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V4))
+                    .addMetaSchema(metaSchema)
+                    .build();
+            JsonSchema schema = factory.getSchema(MAPPER.readTree(input));
+
+            //Build the whole validator tree now, instead of lazily while other threads are validating
+            schema.initializeValidators();
+            return schema;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + SCHEMA_RESOURCE, e);
+        }
+    }
+
+    //Validate an in-memory document
+    static Set<ValidationMessage> validate(JsonNode document) {
+        return Holder.SCHEMA.validate(document);
+    }
+
+    //Validate a Jettison document without serializing it
+    static Set<ValidationMessage> validate(JSONObject document) {
+        return validate(toJsonNode(document));
+    }
+
+    //Validate serialized output, read as a stream
+    static Set<ValidationMessage> validate(Reader output) throws IOException {
+        return validate(MAPPER.readTree(output));
+    }
+
+    /*
+       Add the violations to the report, pointing back to the RAML resource and action which produced them. The
+       function maps a key of the "paths" object back to the URI of its RAML resource.
+     */
+    static void report(Set<ValidationMessage> messages, JSONObject document, Function<String, String> resourceOf, ConversionReport report) {
+        Collection<String> paths = keys(document.optJSONObject(PATHSVARIABLE_PARAM_KEY));
+        Collection<String> definitions = keys(document.optJSONObject(API_DEFINITION_PARAM_KEY));
+
+        for (ValidationMessage message : messages) {
+            String location = message.getPath();
+            String resource = null;
+            String action = null;
+            String schema = null;
+
+            String path = match(location, "$." + PATHSVARIABLE_PARAM_KEY, paths);
+            if (path != null) {
+                resource = resourceOf.apply(path);
+                String rest = location.substring(("$." + PATHSVARIABLE_PARAM_KEY).length() + path.length() + 1);
+                String next = rest.startsWith(".") ? rest.substring(1).split("[.\\[]", 2)[0] : null;
+                if (next != null && ACTIONS.contains(next)) {
+                    action = next.toUpperCase();
+                }
+            } else {
+                schema = match(location, "$." + API_DEFINITION_PARAM_KEY, definitions);
+            }
+
+            report.error(resource, action, schema, "Output is not valid Swagger 2.0: " + message.getMessage(), null);
+        }
+    }
+
+    //Longest key whose segment follows the prefix in the location
+    private static String match(String location, String prefix, Collection<String> keys) {
+        if (!location.startsWith(prefix)) {
+            return null;
+        }
+
+        String best = null;
+        for (String key : keys) {
+            String segment = prefix + "." + key;
+            if (location.startsWith(segment) && (location.length() == segment.length()
+                    || location.charAt(segment.length()) == '.' || location.charAt(segment.length()) == '[')
+                    && (best == null || key.length() > best.length())) {
+                best = key;
+            }
+        }
+        return best;
+    }
+
+    private static Collection<String> keys(JSONObject jsonObject) {
+        List<String> keys = new ArrayList<>();
+        if (jsonObject != null) {
+            Iterator<?> iterator = jsonObject.keys();
+            while (iterator.hasNext()) {
+                keys.add(iterator.next().toString());
+            }
+        }
+        return keys;
+    }
+
+    //Copy a Jettison tree into a Jackson one
+    static JsonNode toJsonNode(Object value) {
+        JsonNodeFactory factory = JsonNodeFactory.instance;
+        try {
+            if (value == null || value == JSONObject.NULL) {
+                return factory.nullNode();
+            } else if (value instanceof RawJson) {
+                return MAPPER.readTree(((RawJson) value).toJSONString());
+            } else if (value instanceof JSONObject) {
+                JSONObject jsonObject = (JSONObject) value;
+                ObjectNode node = factory.objectNode();
+                Iterator<?> keys = jsonObject.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next().toString();
+                    node.set(key, toJsonNode(jsonObject.get(key)));
+                }
+                return node;
+            } else if (value instanceof JSONArray) {
+                JSONArray jsonArray = (JSONArray) value;
+                ArrayNode node = factory.arrayNode();
+                for (int i = 0; i < jsonArray.length(); i++) {
+                    node.add(toJsonNode(jsonArray.get(i)));
+                }
+                return node;
+            } else if (value instanceof Collection) {
+                ArrayNode node = factory.arrayNode();
+                for (Object item : (Collection<?>) value) {
+                    node.add(toJsonNode(item));
+                }
+                return node;
+            } else if (value instanceof Boolean) {
+                return factory.booleanNode((Boolean) value);
+            } else if (value instanceof BigDecimal) {
+                return factory.numberNode((BigDecimal) value);
+            } else if (value instanceof BigInteger) {
+                return factory.numberNode((BigInteger) value);
+            } else if (value instanceof Double || value instanceof Float) {
+                return factory.numberNode(((Number) value).doubleValue());
+            } else if (value instanceof Number) {
+                return factory.numberNode(((Number) value).longValue());
+            }
+            return factory.textNode(value.toString());
+        } catch (JSONException | IOException e) {
+            throw new IllegalStateException("Inconsistent JSON tree", e);
+        }
+    }
+}
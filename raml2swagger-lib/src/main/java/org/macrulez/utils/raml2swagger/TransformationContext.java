@@ -0,0 +1,49 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.Getter;
+import org.raml.model.Raml;
+
+/**
+ * What the transformation stages of a conversion know about its input.
+ * <p>
+ * A model converted again, or mapped from a snapshot, has no RAML document, so {@link #getRaml()} is null for its
+ * stages. The title, the version and the path prefix are always there.
+ */
+@Getter
+public final class TransformationContext {
+    //The parsed RAML document, null when a model is converted without its RAML
+    private final Raml raml;
+
+    private final String title;
+    private final String version;
+
+    //Templated part of the base URI, which Swagger does not allow in the base path, put before every path instead
+    private final String pathPrefix;
+
+    TransformationContext(Raml raml, String title, String version, String pathPrefix) {
+        this.raml = raml;
+        this.title = title;
+        this.version = version;
+        this.pathPrefix = pathPrefix;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.Getter;
+import org.codehaus.jettison.json.JSONException;
+
+/**
+ * Failure of a transformation stage, so it is told apart from the JSON errors of the spec.
+ */
+final class TransformationException extends JSONException {
+    //Class name of the stage
+    @Getter
+    private final String stage;
+
+    TransformationException(TransformationStage stage, Exception cause) {
+        super(cause);
+        this.stage = stage.getClass().getName();
+    }
+
+    @Override
+    public String getMessage() {
+        return "Transformation stage " + stage + " failed: " + getCause().getMessage();
+    }
+}
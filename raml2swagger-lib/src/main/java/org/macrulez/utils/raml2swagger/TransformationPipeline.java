@@ -0,0 +1,154 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import java.util.*;
+
+/**
+ * Ordered, immutable list of the transformation stages of a conversion. The built-in stages come first, so the user
+ * stages see the elements as they are written out.
+ */
+@Slf4j
+final class TransformationPipeline {
+    private static class Holder {
+        private static final TransformationPipeline STANDARD = load(TransformationPipeline.class.getClassLoader());
+    }
+
+    @Getter
+    private final List<TransformationStage> stages;
+
+    //Whether a user stage rewrites inline schemas, which then can not be spliced into the output as raw JSON
+    @Getter
+    private final boolean rewritingInlineSchemas;
+
+    private TransformationPipeline(List<TransformationStage> stages) {
+        this.stages = Collections.unmodifiableList(stages);
+
+        boolean rewriting = false;
+        for (TransformationStage stage : stages) {
+            rewriting |= !(stage instanceof InlineSchemaStage) && overrides(stage, "inlineSchema", JSONObject.class, TransformationContext.class);
+        }
+        this.rewritingInlineSchemas = rewriting;
+    }
+
+    //Only the built-in stages
+    static TransformationPipeline builtin() {
+        return new TransformationPipeline(Arrays.asList(new SchemaDefinitionStage(), new InlineSchemaStage(),
+                new DefaultResponseStage(), new PathPrefixStage()));
+    }
+
+    //The built-in stages and the ones registered on the class path, loaded once
+    static TransformationPipeline standard() {
+        return Holder.STANDARD;
+    }
+
+    //The built-in stages and the ones registered with the class loader
+    static TransformationPipeline load(ClassLoader classLoader) {
+        List<TransformationStage> stages = new ArrayList<>();
+        for (TransformationStage stage : ServiceLoader.load(TransformationStage.class, classLoader)) {
+            stages.add(stage);
+        }
+        stages.sort(Comparator.comparingInt(TransformationStage::getOrder).thenComparing(stage -> stage.getClass().getName()));
+        if (!stages.isEmpty()) {
+            LOGGER.debug("Transformation stages: {}", stages);
+        }
+        return builtin().with(stages);
+    }
+
+    //A pipeline running the stages after these ones
+    TransformationPipeline with(TransformationStage... stages) {
+        return with(Arrays.asList(stages));
+    }
+
+    private TransformationPipeline with(List<TransformationStage> stages) {
+        List<TransformationStage> all = new ArrayList<>(this.stages);
+        all.addAll(stages);
+        return new TransformationPipeline(all);
+    }
+
+    private static boolean overrides(TransformationStage stage, String method, Class<?>... parameterTypes) {
+        try {
+            return stage.getClass().getMethod(method, parameterTypes).getDeclaringClass() != TransformationStage.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    //A failure of a stage is thrown as a TransformationException naming it
+    JSONObject definition(String name, JSONObject definition, TransformationContext context) throws JSONException {
+        for (TransformationStage stage : stages) {
+            try {
+                definition = stage.definition(name, definition, context);
+            } catch (JSONException | RuntimeException e) {
+                throw new TransformationException(stage, e);
+            }
+        }
+        return definition;
+    }
+
+    JSONObject inlineSchema(JSONObject schema, TransformationContext context) throws JSONException {
+        for (TransformationStage stage : stages) {
+            try {
+                schema = stage.inlineSchema(schema, context);
+            } catch (JSONException | RuntimeException e) {
+                throw new TransformationException(stage, e);
+            }
+        }
+        return schema;
+    }
+
+    JSONObject operation(String path, String method, JSONObject operation, TransformationContext context) throws JSONException {
+        for (int i = 0; i < stages.size() && operation != null; i++) {
+            try {
+                operation = stages.get(i).operation(path, method, operation, context);
+            } catch (JSONException | RuntimeException e) {
+                throw new TransformationException(stages.get(i), e);
+            }
+        }
+        return operation;
+    }
+
+    String path(String path, JSONObject operations, TransformationContext context) throws JSONException {
+        for (int i = 0; i < stages.size() && path != null; i++) {
+            try {
+                path = stages.get(i).path(path, operations, context);
+            } catch (JSONException | RuntimeException e) {
+                throw new TransformationException(stages.get(i), e);
+            }
+        }
+        return path;
+    }
+
+    void document(JSONObject swagger, TransformationContext context) throws JSONException {
+        for (TransformationStage stage : stages) {
+            try {
+                stage.document(swagger, context);
+            } catch (JSONException | RuntimeException e) {
+                throw new TransformationException(stage, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+/**
+ * A rewrite of the Swagger model, applied while the model is built and before it is serialized.
+ * <p>
+ * Every method is called as soon as its element is complete and returns the element to put into the output, which
+ * may be the one passed in, modified in place. The defaults leave the element unchanged. Stages are registered with
+ * {@link java.util.ServiceLoader} under <code>META-INF/services/org.macrulez.utils.raml2swagger.TransformationStage</code>
+ * and run after the built-in stages, by ascending {@link #getOrder()}.
+ */
+public interface TransformationStage {
+
+    //Position among the user stages, stages of the same order run by class name
+    default int getOrder() {
+        return 0;
+    }
+
+    //Definition built from a named RAML schema
+    default JSONObject definition(String name, JSONObject definition, TransformationContext context) throws JSONException {
+        return definition;
+    }
+
+    //Schema of a parameter or a response which is not one of the definitions
+    default JSONObject inlineSchema(JSONObject schema, TransformationContext context) throws JSONException {
+        return schema;
+    }
+
+    //Operation of a resource, with its parameters and responses. Null drops the operation
+    default JSONObject operation(String path, String method, JSONObject operation, TransformationContext context) throws JSONException {
+        return operation;
+    }
+
+    //Key of a resource in the paths. Null drops the resource, but not its sub-resources
+    default String path(String path, JSONObject operations, TransformationContext context) throws JSONException {
+        return path;
+    }
+
+    //The complete document
+    default void document(JSONObject swagger, TransformationContext context) throws JSONException {
+    }
+}
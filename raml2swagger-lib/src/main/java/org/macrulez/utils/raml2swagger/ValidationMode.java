@@ -0,0 +1,35 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+/**
+ * How the validation stage running next to the conversion reacts to problems.
+ */
+enum ValidationMode {
+    //No validation stage, only the problems hit by the conversion itself are reported
+    NONE,
+
+    //Validate the whole spec and report every problem, the conversion still produces its output
+    COLLECT_ALL,
+
+    //Stop both the validation and the conversion at the first error, the conversion returns null
+    FAIL_FAST
+}
@@ -0,0 +1,85 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+
+public class ApiModelTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void snapshotConvertsLikeTheRaml() throws Exception {
+        String raml = IOUtils.resourceToString("/product-api.raml", Charset.forName("UTF-8"));
+        assertSameOutput(raml, null);
+
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().fanOut(3).depth(2).schemaCount(2).includeCount(4);
+        assertSameOutput(generator.generate(), generator);
+    }
+
+    private void assertSameOutput(String raml, SyntheticRamlGenerator generator) throws Exception {
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        String expected = converter.convertToSwagger(raml, generator == null ? null : generator.resourceLoader());
+
+        ApiModel model = converter.toModel(new StringReader(raml), generator == null ? null : generator.resourceLoader());
+        Assert.assertNotNull(model);
+        Assert.assertEquals("Model built in memory", expected, converter.convertToSwagger(model));
+
+        Path snapshot = folder.newFile().toPath();
+        model.write(snapshot);
+        Assert.assertEquals("Mapped snapshot", expected, new RAMLtoSwagger().convertToSwagger(ApiModel.map(snapshot)));
+    }
+
+    @Test
+    public void sharedSchemas() throws Exception {
+        String schema = "'{\"type\": \"object\", \"properties\": {\"id\": {\"type\": \"string\"}}}'";
+        String raml = "#%RAML 0.8\n---\ntitle: Shared\nbaseUri: http://api.example.com\n"
+                + "/a:\n  post:\n    body:\n      application/json:\n        schema: " + schema + "\n"
+                + "/b:\n  get:\n    responses:\n      200:\n        body:\n          application/json:\n            schema: " + schema + "\n";
+
+        ApiModel model = new RAMLtoSwagger().toModel(new StringReader(raml), null);
+        Assert.assertEquals("One row for the equal schemas", 1, model.rows(ModelLayout.SCHEMA));
+        Assert.assertEquals(ModelLayout.PARAMETER_BODY, model.get(ModelLayout.PARAMETER, 0, ModelLayout.PARAMETER_KIND));
+    }
+
+    @Test(expected = IOException.class)
+    public void notASnapshot() throws Exception {
+        ApiModel.of(ByteBuffer.wrap("#%RAML 0.8\n---\ntitle: Not a snapshot\n".getBytes("UTF-8")));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedSnapshot() throws Exception {
+        String raml = IOUtils.resourceToString("/product-api.raml", Charset.forName("UTF-8"));
+        ByteBuffer snapshot = new RAMLtoSwagger().toModel(new StringReader(raml), null).toSnapshot();
+        snapshot.limit(snapshot.limit() - 1);
+        ApiModel.of(snapshot);
+    }
+}
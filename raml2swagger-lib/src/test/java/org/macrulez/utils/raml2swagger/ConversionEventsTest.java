@@ -0,0 +1,98 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ConversionEventsTest {
+    private static final String ITEM_SCHEMA = "{ \"type\": \"object\", \"properties\": { \"id\": { \"type\": \"integer\" } } }";
+    private static final String RAML = "#%RAML 0.8\n" +
+            "---\n" +
+            "title: Shop\n" +
+            "baseUri: http://api.example.com/v1\n" +
+            "schemas:\n" +
+            "  - item: '" + ITEM_SCHEMA + "'\n" +
+            "/items:\n" +
+            "  get:\n" +
+            "    queryParameters:\n" +
+            "      page:\n" +
+            "      size:\n" +
+            "    responses:\n" +
+            "      200:\n" +
+            "        body:\n" +
+            "          application/json:\n" +
+            "            schema: '{ \"type\": \"array\" }'\n" +
+            "  post:\n" +
+            "    body:\n" +
+            "      application/json:\n" +
+            "        schema: item\n" +
+            "  /{id}:\n" +
+            "    get:\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void conversionEvents() throws Exception {
+        Path file = folder.newFile("conversion.jfr").toPath();
+        try (Recording recording = new Recording()) {
+            recording.enable(ResourceEvent.class);
+            recording.enable(SchemaEvent.class);
+            recording.enable(PhaseEvent.class);
+            recording.start();
+            Assert.assertNotNull(new RAMLtoSwagger().convertToSwagger(RAML));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, List<RecordedEvent>> events = RecordingFile.readAllEvents(file).stream()
+                .collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+
+        List<RecordedEvent> resources = events.get("org.macrulez.raml2swagger.Resource");
+        Assert.assertEquals(2, resources.size());
+        RecordedEvent items = resources.stream().filter(event -> "/items".equals(event.getString("uri"))).findFirst().orElse(null);
+        Assert.assertNotNull(items);
+        Assert.assertEquals(2, items.getInt("actions"));
+        Assert.assertEquals("Two query parameters and the body", 3, items.getInt("parameters"));
+
+        List<RecordedEvent> schemas = events.get("org.macrulez.raml2swagger.Schema");
+        Set<String> names = schemas.stream().map(event -> event.getString("name")).collect(Collectors.toSet());
+        Assert.assertTrue(names.contains("item"));
+        Assert.assertTrue(names.contains("/items GET 200"));
+        Assert.assertEquals(ITEM_SCHEMA.length(), schemas.stream().filter(event -> "item".equals(event.getString("name"))).findFirst().get().getLong("size"));
+
+        Set<String> phases = events.get("org.macrulez.raml2swagger.Phase").stream().map(event -> event.getString("phase")).collect(Collectors.toSet());
+        Assert.assertTrue(phases.containsAll(Arrays.asList("parse", "info", "definitions", "resources", "securitySchemes", "serialization")));
+    }
+}
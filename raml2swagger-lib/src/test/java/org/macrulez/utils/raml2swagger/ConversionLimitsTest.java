@@ -0,0 +1,229 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.raml.parser.loader.ResourceLoader;
+
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConversionLimitsTest {
+
+    //Converts with the limits, asserting that the conversion fails with the message
+    private static void assertExceeds(ConversionLimits limits, String message, String raml, ResourceLoader loader) {
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setLimits(limits);
+        Assert.assertNull(converter.convertToSwagger(raml, loader));
+        Assert.assertTrue(converter.getReport().toString(), converter.getReport().toString().contains(message));
+    }
+
+    @Test
+    public void inputAndOutputSize() throws Exception {
+        String raml = IOUtils.resourceToString("/product-api.raml", Charset.forName("UTF-8"));
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setLimits(ConversionLimits.builder().maxInputSize(raml.length()).maxOutputSize(1 << 20).build());
+        Assert.assertNotNull("Limits not reached", converter.convertToSwagger(raml));
+
+        assertExceeds(ConversionLimits.builder().maxInputSize(1000).build(), "Input is larger than 1000", raml, null);
+        assertExceeds(ConversionLimits.builder().maxOutputSize(1000).build(), "Output is larger than 1000 bytes", raml, null);
+
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().resources(10).schemaCount(4).includeCount(4);
+        String spec = generator.generate();
+        assertExceeds(ConversionLimits.builder().maxInputSize(spec.length() + 10).build(), "Input is larger than", spec, generator.resourceLoader());
+    }
+
+    @Test
+    public void includes() {
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().resources(10).schemaCount(4).includeCount(4);
+        String raml = generator.generate();
+        assertExceeds(ConversionLimits.builder().maxIncludes(3).build(), "More than 3 includes", raml, generator.resourceLoader());
+    }
+
+    @Test
+    public void resourceDepth() {
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().fanOut(1).depth(100);
+        String raml = generator.generate();
+        assertExceeds(ConversionLimits.builder().maxResourceDepth(50).build(), "nested deeper than", raml, generator.resourceLoader());
+
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setLimits(ConversionLimits.builder().maxResourceDepth(100).build());
+        Assert.assertNotNull(converter.convertToSwagger(raml, generator.resourceLoader()));
+    }
+
+    @Test
+    public void deepYaml() {
+        //Deep enough to overflow the stack of the parser, which builds the document recursively
+        StringBuilder raml = new StringBuilder("#%RAML 0.8\n---\ntitle: Deep\nbaseUri: http://api.example.com\n");
+        StringBuilder indent = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            raml.append(indent).append("/r").append(i).append(":\n");
+            indent.append(' ');
+        }
+        assertExceeds(ConversionLimits.builder().maxResourceDepth(50).maxYamlNodes(1_000_000).build(),
+                "YAML of the spec is nested deeper than", raml.toString(), null);
+        assertExceeds(ConversionLimits.builder().maxResourceDepth(50).build(), "YAML of the spec is nested deeper than", raml.toString(), null);
+    }
+
+    @Test
+    public void yamlAliasBomb() {
+        //Every level doubles the document, 40 levels would expand to 2^40 nodes
+        StringBuilder raml = new StringBuilder("#%RAML 0.8\n---\ntitle: Bomb\nbaseUri: http://api.example.com\n");
+        raml.append("documentation:\n  - title: &a0 [lol]\n    content: x\n");
+        for (int i = 1; i <= 40; i++) {
+            raml.append("  - title: &a").append(i).append(" [*a").append(i - 1).append(", *a").append(i - 1).append("]\n    content: x\n");
+        }
+
+        long start = System.nanoTime();
+        assertExceeds(ConversionLimits.builder().maxYamlNodes(100_000).build(), "more than 100000 nodes", raml.toString(), null);
+        Assert.assertTrue("The bomb should be caught before it is expanded", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void asynchronousConversion() throws Exception {
+        String raml = IOUtils.resourceToString("/product-api.raml", Charset.forName("UTF-8"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            String json = new RAMLtoSwagger().convertToSwaggerAsync(() -> new StringReader(raml), null, executor).get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(new RAMLtoSwagger().convertToSwagger(raml), json);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void timeout() throws Exception {
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().resources(10).schemaCount(4).includeCount(4);
+        String raml = generator.generate();
+        ResourceLoader slow = resourceName -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return generator.resourceLoader().fetchResource(resourceName);
+        };
+
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setLimits(ConversionLimits.builder().timeout(Duration.ofMillis(100)).build());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            long start = System.nanoTime();
+            CompletableFuture<String> future = converter.convertToSwaggerAsync(() -> new StringReader(raml), slow, executor);
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                Assert.fail("The conversion should time out");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof ConversionLimitException);
+            }
+            Assert.assertTrue("The future should complete when the timeout expires, not when an include is read",
+                    System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(450));
+
+            //The worker gives up at its next checkpoint, before fetching another include
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            Assert.assertTrue(converter.getReport().toString().contains("Conversion took longer than"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void cancellation() throws Exception {
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().resources(10).schemaCount(4).includeCount(4);
+        String raml = generator.generate();
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        AtomicInteger fetched = new AtomicInteger();
+        ResourceLoader blocking = resourceName -> {
+            fetched.incrementAndGet();
+            fetching.countDown();
+            try {
+                cancelled.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return generator.resourceLoader().fetchResource(resourceName);
+        };
+
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<String> future = converter.convertToSwaggerAsync(() -> new StringReader(raml), blocking, executor);
+            Assert.assertTrue(fetching.await(30, TimeUnit.SECONDS));
+            Assert.assertTrue(future.cancel(true));
+            cancelled.countDown();
+
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            Assert.assertEquals("No include should be fetched after the cancellation", 1, fetched.get());
+            Assert.assertTrue(converter.getReport().toString().contains("Conversion cancelled"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void timedOutConversionKeepsToItself() throws Exception {
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().resources(10).schemaCount(4).includeCount(4);
+        String raml = generator.generate();
+        CountDownLatch timedOut = new CountDownLatch(1);
+        ResourceLoader blocking = resourceName -> {
+            try {
+                timedOut.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return generator.resourceLoader().fetchResource(resourceName);
+        };
+
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setLimits(ConversionLimits.builder().timeout(Duration.ofMillis(100)).build());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<String> future = converter.convertToSwaggerAsync(() -> new StringReader(raml), blocking, executor);
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                Assert.fail("The conversion should time out");
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof ConversionLimitException);
+            }
+
+            //The converter is used again while the timed out conversion is still running
+            String product = IOUtils.resourceToString("/product-api.raml", Charset.forName("UTF-8"));
+            converter.setLimits(ConversionLimits.NONE);
+            CompletableFuture<String> next = CompletableFuture.supplyAsync(() -> converter.convertToSwagger(product));
+            timedOut.countDown();
+            Assert.assertEquals(new RAMLtoSwagger().convertToSwagger(product), next.get(30, TimeUnit.SECONDS));
+
+            executor.shutdown();
+            Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            Assert.assertFalse("The report is the one of the last conversion", converter.getReport().hasErrors());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
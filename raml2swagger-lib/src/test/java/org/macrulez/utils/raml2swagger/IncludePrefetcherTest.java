@@ -0,0 +1,174 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.raml.parser.loader.UrlResourceLoader;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IncludePrefetcherTest {
+    //Latency of every response of the stand-in server
+    private static final long LATENCY = 200;
+    private static final int SCHEMAS = 6;
+
+    private final Map<String, String> resources = new HashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    private String base;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            try {
+                Thread.sleep(LATENCY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            String content = resources.get(path);
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        base = "http://localhost:" + server.getAddress().getPort();
+        executor = Executors.newFixedThreadPool(8);
+
+        //The schemas are included from an included YAML file, so they are only found on the second level
+        StringBuilder schemas = new StringBuilder();
+        for (int i = 0; i < SCHEMAS; i++) {
+            schemas.append("- schema").append(i).append(": !include ").append(base).append("/schema").append(i).append(".json\n");
+            resources.put("/schema" + i + ".json", "{\"$schema\": \"http://json-schema.org/draft-03/schema\", \"type\": \"object\", "
+                    + "\"properties\": {\"field" + i + "\": {\"type\": \"string\", \"required\": true}}}");
+        }
+        resources.put("/schemas.yaml", schemas.toString());
+        resources.put("/overview.md", "Served by the stand-in server");
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    private String spec(String schemas) {
+        return "#%RAML 0.8\n---\ntitle: Remote\nbaseUri: http://api.example.com\n"
+                + "documentation:\n  - title: Overview\n    content: !include " + base + "/overview.md\n"
+                + "schemas: !include " + base + "/" + schemas + "\n"
+                + "/items:\n  get:\n    responses:\n      200:\n        body:\n          application/json:\n            schema: schema0\n";
+    }
+
+    private static String failure(RAMLtoSwagger converter, String raml) {
+        try {
+            converter.convertToSwagger(raml, new UrlResourceLoader());
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+        throw new AssertionError("Conversion should fail");
+    }
+
+    @Test
+    public void prefetchesConcurrently() {
+        String raml = spec("schemas.yaml");
+
+        long start = System.nanoTime();
+        String expected = new RAMLtoSwagger().convertToSwagger(raml, new UrlResourceLoader());
+        long sequential = System.nanoTime() - start;
+        Assert.assertNotNull(expected);
+        Assert.assertTrue(expected, expected.contains("field" + (SCHEMAS - 1)));
+
+        requests.clear();
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setPrefetchExecutor(executor);
+        start = System.nanoTime();
+        String actual = converter.convertToSwagger(raml, new UrlResourceLoader());
+        long prefetched = System.nanoTime() - start;
+
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals("Every include fetched", SCHEMAS + 2, requests.size());
+        requests.forEach((path, count) -> Assert.assertEquals(path + " fetched once", 1, count.get()));
+        //Two levels of includes take two round trips instead of one per include
+        Assert.assertTrue("Prefetching took " + prefetched / 1_000_000 + " ms, sequential " + sequential / 1_000_000 + " ms",
+                prefetched < sequential / 2);
+    }
+
+    @Test(timeout = 10_000)
+    public void rejectedFetches() {
+        String raml = spec("schemas.yaml");
+        String expected = new RAMLtoSwagger().convertToSwagger(raml, new UrlResourceLoader());
+
+        //Takes the includes of the spec, rejects the ones of the included YAML file, which are submitted by a worker
+        AtomicInteger submitted = new AtomicInteger();
+        Executor saturated = task -> {
+            if (submitted.incrementAndGet() > 2) {
+                throw new RejectedExecutionException("Saturated");
+            }
+            executor.execute(task);
+        };
+
+        requests.clear();
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setPrefetchExecutor(saturated);
+        Assert.assertEquals(expected, converter.convertToSwagger(raml, new UrlResourceLoader()));
+        Assert.assertEquals("Rejected includes fetched anyway", SCHEMAS + 2, requests.size());
+        requests.forEach((path, count) -> Assert.assertEquals(path + " fetched once", 1, count.get()));
+    }
+
+    @Test
+    public void missingInclude() {
+        String raml = spec("missing.yaml");
+
+        //The parser fails on a missing include, which the prefetched loader must reproduce
+        String expected = failure(new RAMLtoSwagger(), raml);
+        Assert.assertTrue(expected, expected.contains("resource not found"));
+
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setPrefetchExecutor(executor);
+        Assert.assertEquals(expected, failure(converter, raml));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
+
+public class OutputOrderTest {
+    private static final String SCHEMA_A = "  - a: '{\"type\": \"object\", \"properties\": {\"zeta\": {\"type\": \"string\"}, \"alpha\": {\"type\": \"integer\"}}}'\n";
+    private static final String SCHEMA_B = "  - b: '{\"type\": \"object\", \"properties\": {\"name\": {\"type\": \"string\"}}}'\n";
+    private static final String RESOURCE_A = "/a/{aId}/{id}:\n  get:\n    responses:\n      200:\n        body:\n          application/json:\n            schema: a\n";
+    private static final String RESOURCE_B = "/b:\n  post:\n    body:\n      application/json:\n        schema: b\n  get:\n";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static String spec(String schemas, String resources) {
+        return "#%RAML 0.8\n---\ntitle: Ordered\nbaseUri: http://api.example.com\nschemas:\n" + schemas + resources;
+    }
+
+    private static String convert(String raml, OutputOrder order, boolean rawJsonPassthrough) {
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setOutputOrder(order);
+        converter.setRawJsonPassthrough(rawJsonPassthrough);
+        return converter.convertToSwagger(raml);
+    }
+
+    private static void assertSorted(JsonNode json) {
+        String previous = null;
+        for (Iterator<String> names = json.fieldNames(); names.hasNext(); ) {
+            String name = names.next();
+            Assert.assertTrue(previous + " before " + name, previous == null || previous.compareTo(name) < 0);
+            previous = name;
+        }
+        json.forEach(OutputOrderTest::assertSorted);
+    }
+
+    @Test
+    public void sourceOrder() throws Exception {
+        String raml = IOUtils.resourceToString("/product-api.raml", Charset.forName("UTF-8"));
+        String output = convert(raml, OutputOrder.SOURCE, false);
+        Assert.assertEquals("Same bytes on every conversion", output, convert(raml, OutputOrder.SOURCE, false));
+
+        //Path parameters in the order of the URI, outer ones first
+        JsonNode parameters = objectMapper.readTree(convert(spec(SCHEMA_A, RESOURCE_A), OutputOrder.SOURCE, false))
+                .path("paths").path("/a/{aId}/{id}").path("get").path("parameters");
+        Assert.assertEquals("aId", parameters.path(0).path("name").asText());
+        Assert.assertEquals("id", parameters.path(1).path("name").asText());
+    }
+
+    @Test
+    public void sortedKeys() throws Exception {
+        String raml = spec(SCHEMA_A + SCHEMA_B, RESOURCE_A + RESOURCE_B);
+        String sorted = convert(raml, OutputOrder.SORTED, false);
+        assertSorted(objectMapper.readTree(sorted));
+        Assert.assertEquals("Same content", objectMapper.readTree(convert(raml, OutputOrder.SOURCE, false)), objectMapper.readTree(sorted));
+
+        //Neither the order of the declarations nor the passthrough of the schemas changes a byte
+        Assert.assertEquals(sorted, convert(spec(SCHEMA_B + SCHEMA_A, RESOURCE_B + RESOURCE_A), OutputOrder.SORTED, false));
+        Assert.assertEquals(sorted, convert(raml, OutputOrder.SORTED, true));
+    }
+
+    @Test
+    public void sortedMerge() throws Exception {
+        SwaggerMerger merger = new SwaggerMerger();
+        merger.setOutputOrder(OutputOrder.SORTED);
+        merger.setRawJsonPassthrough(true);
+        SwaggerMerger.Merged merged = merger.merge(Arrays.asList(SwaggerMerger.Source.of("b", spec(SCHEMA_B, RESOURCE_B), null),
+                SwaggerMerger.Source.of("a", spec(SCHEMA_A, RESOURCE_A), null)));
+        Assert.assertNotNull(merger.getReport().toString(), merged);
+
+        String json = merged.toJson();
+        assertSorted(objectMapper.readTree(json));
+        Assert.assertFalse("Line feeds only", json.contains("\r"));
+    }
+}
@@ -0,0 +1,234 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Checks that conversion time and allocated heap grow roughly linearly with the number of resources.
+ * <p>
+ * Every build compares a tier of 1000 resources with one of 4000, with a margin that only a super-linear conversion
+ * exceeds. The larger tiers only run with the <code>scaling</code> profile, which sets
+ * <code>raml2swagger.scaling</code>, as their timing and heap ratios depend on the machine. The largest tier is set by the
+ * <code>raml2swagger.scaling.max</code> system property (10000 by default, 100000 with the profile), the allowed
+ * growth of the per-resource cost between the smallest and the largest tier by <code>raml2swagger.scaling.factor</code>.
+ */
+@Slf4j
+public class RAMLtoSwaggerScalingTest {
+    private static final boolean SCALING = Boolean.getBoolean("raml2swagger.scaling");
+    private static final int MIN_RESOURCES = 100;
+    private static final int MAX_RESOURCES = Integer.getInteger("raml2swagger.scaling.max", 10_000);
+    private static final double MAX_FACTOR = Double.parseDouble(System.getProperty("raml2swagger.scaling.factor", "4"));
+
+    //Per-resource cost is only compared from this tier on, below it fixed costs dominate the measurement
+    private static final int BASELINE_RESOURCES = 1000;
+
+    //The tier compared with the baseline by every build. A quadratic conversion costs 4 times as much per resource in it
+    private static final int SMALL_RESOURCES = 4000;
+    private static final double SMALL_FACTOR = 2.5;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void generatorIsDeterministic() {
+        String first = new SyntheticRamlGenerator().resources(500).generate();
+        String second = new SyntheticRamlGenerator().resources(500).generate();
+        Assert.assertEquals("The same parameters should produce the same spec", first, second);
+
+        String other = new SyntheticRamlGenerator().resources(500).seed(7).generate();
+        Assert.assertNotEquals("A different seed should produce a different spec", first, other);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void syntheticSpecConverts() throws Exception {
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator()
+                .fanOut(3).depth(3).actionsPerResource(3).parameterCount(3).schemaCount(5).includeCount(8);
+        String raml = generator.generate();
+
+        String swagger = new RAMLtoSwagger().convertToSwagger(raml, generator.resourceLoader());
+        Assert.assertNotNull(swagger);
+
+        Map<String, Object> json = objectMapper.readValue(swagger, new TypeReference<HashMap<String, Object>>() {});
+        Assert.assertEquals("Every resource should be a path", generator.getResourceCount(), ((Map<String, Object>) json.get("paths")).size());
+        Assert.assertEquals("Every schema should be a definition", 5, ((Map<String, Object>) json.get("definitions")).size());
+    }
+
+    @Test
+    public void smallTierScalesLinearly() {
+        //The fastest of a few runs, so that a collection or a JIT compilation does not fail the build
+        Measurement baseline = fastest(BASELINE_RESOURCES);
+        Measurement measurement = fastest(SMALL_RESOURCES);
+        LOGGER.info("{} resources: {} ns/resource, {} resources: {} ns/resource", baseline.resources,
+                (long) baseline.nanosPerResource(), measurement.resources, (long) measurement.nanosPerResource());
+
+        assertLinear(baseline, measurement, SMALL_FACTOR);
+    }
+
+    @Test
+    public void conversionScalesLinearly() {
+        Assume.assumeTrue("Measured with the scaling profile", SCALING);
+
+        //Warm up the JIT so that the first tier is not penalized
+        for (int i = 0; i < 3; i++) {
+            measure(BASELINE_RESOURCES);
+        }
+
+        Measurement baseline = null;
+        for (int resources = MIN_RESOURCES; resources <= MAX_RESOURCES; resources *= 10) {
+            Measurement measurement = measure(resources);
+            LOGGER.info("{} resources: {} ms, {} KB allocated, {} ns/resource, {} bytes/resource",
+                    resources, measurement.nanos / 1_000_000, measurement.bytes / 1024,
+                    (long) measurement.nanosPerResource(), (long) measurement.bytesPerResource());
+
+            if (resources < BASELINE_RESOURCES) {
+                continue;
+            }
+            if (baseline == null) {
+                baseline = measurement;
+                continue;
+            }
+
+            assertLinear(baseline, measurement, MAX_FACTOR);
+        }
+    }
+
+    private static void assertLinear(Measurement baseline, Measurement measurement, double factor) {
+        Assert.assertTrue(String.format("Conversion time is super-linear: %.0f ns/resource at %d resources vs %.0f at %d",
+                measurement.nanosPerResource(), measurement.resources, baseline.nanosPerResource(), baseline.resources),
+                measurement.nanosPerResource() <= baseline.nanosPerResource() * factor);
+        Assert.assertTrue(String.format("Heap use is super-linear: %.0f bytes/resource at %d resources vs %.0f at %d",
+                measurement.bytesPerResource(), measurement.resources, baseline.bytesPerResource(), baseline.resources),
+                measurement.bytesPerResource() <= baseline.bytesPerResource() * factor);
+    }
+
+    @Test
+    public void interningSharesOutputStrings() throws Exception {
+        Assume.assumeTrue("Measured with the scaling profile", SCALING);
+
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().actionsPerResource(3).parameterCount(4).resources(1000);
+        String raml = generator.generate();
+
+        RAMLtoSwagger plain = new RAMLtoSwagger();
+        plain.setStringInterning(false);
+        long plainBytes = stringBytes(plain.convertToTree(new StringReader(raml), generator.resourceLoader()));
+        long pooledBytes = stringBytes(new RAMLtoSwagger().convertToTree(new StringReader(raml), generator.resourceLoader()));
+
+        LOGGER.info("{} resources: {} KB of strings without interning, {} KB with it", generator.getResourceCount(),
+                plainBytes / 1024, pooledBytes / 1024);
+        Assert.assertTrue(String.format("Interning should at least halve the string heap: %d vs %d bytes", pooledBytes, plainBytes),
+                pooledBytes * 2 <= plainBytes);
+    }
+
+    //Estimated shallow size of the distinct string instances in the tree, with their char arrays
+    private static long stringBytes(JSONObject tree) throws Exception {
+        Set<String> strings = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectStrings(tree, strings);
+
+        long bytes = 0;
+        for (String string : strings) {
+            bytes += 24 + ((16 + 2L * string.length() + 7) & ~7);
+        }
+        return bytes;
+    }
+
+    private static void collectStrings(Object value, Set<String> strings) throws Exception {
+        if (value instanceof String) {
+            strings.add((String) value);
+        } else if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            Iterator<?> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = (String) keys.next();
+                strings.add(key);
+                collectStrings(object.get(key), strings);
+            }
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            for (int i = 0; i < array.length(); i++) {
+                collectStrings(array.get(i), strings);
+            }
+        }
+    }
+
+    private Measurement fastest(int resources) {
+        Measurement fastest = null;
+        for (int i = 0; i < 3; i++) {
+            Measurement measurement = measure(resources);
+            if (fastest == null || measurement.nanos < fastest.nanos) {
+                fastest = measurement;
+            }
+        }
+        return fastest;
+    }
+
+    private Measurement measure(int resources) {
+        //Lean resources keep the 100k tier within a few GB of heap, the parser model is the bulk of it
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().actionsPerResource(1).parameterCount(1).resources(resources);
+        String raml = generator.generate();
+
+        System.gc();
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        String swagger = new RAMLtoSwagger().convertToSwagger(raml, generator.resourceLoader());
+        long nanos = System.nanoTime() - start;
+        bytes = allocatedBytes() - bytes;
+
+        Assert.assertNotNull(swagger);
+        return new Measurement(generator.getResourceCount(), nanos, bytes);
+    }
+
+    //Bytes allocated so far by the current thread, the conversion runs on it
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static class Measurement {
+        private final int resources;
+        private final long nanos;
+        private final long bytes;
+
+        Measurement(int resources, long nanos, long bytes) {
+            this.resources = resources;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        double nanosPerResource() {
+            return (double) nanos / resources;
+        }
+
+        double bytesPerResource() {
+            return (double) bytes / resources;
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package org.macrulez.utils.raml2swagger;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.NoArgsConstructor;
 import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.File;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +29,9 @@ public class RAMLtoSwaggerTest {
     private final RAMLtoSwagger raml2Swagger = new RAMLtoSwagger();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     @SuppressWarnings("unchecked")
     public void convertToSwaggerValidJson() throws Exception {
@@ -132,4 +145,119 @@ public class RAMLtoSwaggerTest {
         Assert.assertNotNull(swagger2);
         Assert.assertEquals("The two swaggers output should be the same", swagger, swagger2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void convertToSwaggerFromPath() throws Exception {
+        String swagger = raml2Swagger.convertToSwagger(IOUtils.resourceToString(PRODUCT_API_RAML, Charset.forName("UTF-8")));
+        String swagger2 = raml2Swagger.convertToSwagger(Paths.get(getClass().getResource(PRODUCT_API_RAML).toURI()));
+        Assert.assertEquals("The file output should be the same", swagger, swagger2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void convertToSwaggerWithCharset() throws Exception {
+        String raml = "#%RAML 0.8\n---\ntitle: Gr\u00f6\u00dfen API \u20ac\nbaseUri: http://api.example.com/sizes\n/sizes:\n  get:\n";
+
+        File utf8 = temporaryFolder.newFile("utf8.raml");
+        Files.write(utf8.toPath(), raml.getBytes(StandardCharsets.UTF_8));
+        Map<String, Object> json = objectMapper.readValue(raml2Swagger.convertToSwagger(utf8.toPath()), new TypeReference<HashMap<String, Object>>() {});
+        Assert.assertEquals("Gr\u00f6\u00dfen API \u20ac", ((Map<String, Object>) json.get("info")).get("title"));
+
+        File latin1 = temporaryFolder.newFile("latin1.raml");
+        Files.write(latin1.toPath(), raml.replace(" \u20ac", "").getBytes(StandardCharsets.ISO_8859_1));
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setCharset(StandardCharsets.ISO_8859_1);
+        json = objectMapper.readValue(converter.convertToSwagger(latin1.toPath()), new TypeReference<HashMap<String, Object>>() {});
+        Assert.assertEquals("Gr\u00f6\u00dfen API", ((Map<String, Object>) json.get("info")).get("title"));
+    }
+
+    @Test
+    public void convertToSwaggerFromMappedFile() throws Exception {
+        //Large enough to be memory-mapped, with non-ASCII text across the whole file
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().resources(1200);
+        String raml = generator.generate().replace("description: Resource ", "description: Ressource \u00e0 ");
+
+        Path file = temporaryFolder.newFile("large.raml").toPath();
+        Files.write(file, raml.getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(Files.size(file) >= ChannelReader.MAP_THRESHOLD);
+
+        String swagger = raml2Swagger.convertToSwagger(raml, generator.resourceLoader());
+        String swagger2 = raml2Swagger.convertToSwagger(file, generator.resourceLoader());
+        Assert.assertNotNull(swagger2);
+        Assert.assertEquals("The mapped file output should be the same", swagger, swagger2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void definitionRequiredProperties() throws Exception {
+        //A nested chain of objects close to the deepest nesting parsed
+        StringBuilder nested = new StringBuilder("{\"type\": \"string\", \"required\": true}");
+        for (int i = 0; i < (JsonText.MAX_NESTING - 4) / 2; i++) {
+            nested.insert(0, "{\"type\": \"object\", \"required\": true, \"properties\": {\"child\": ").append("}}");
+        }
+
+        String schema = "{\"$schema\": \"http://json-schema.org/draft-03/schema\", \"type\": \"object\", \"properties\": {" +
+                "\"id\": {\"type\": \"integer\", \"required\": true}, " +
+                "\"name\": {\"type\": \"string\", \"required\": \"true\"}, " +
+                "\"note\": {\"type\": \"string\", \"required\": false}, " +
+                "\"tree\": " + nested + "}}";
+
+        Map<String, Object> definition = objectMapper.readValue(RAMLtoSwagger.getDefinition(schema).toString(), new TypeReference<HashMap<String, Object>>() {});
+        Assert.assertEquals("object", definition.get("type"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("id", "name", "tree")), new HashSet<>((List<String>) definition.get("required")));
+        Assert.assertFalse("Required flags should be stripped at every depth", RAMLtoSwagger.getDefinition(schema).toString().contains("\"required\":true"));
+    }
+
+    @Test
+    public void deeplyNestedSchema() throws Exception {
+        //Deep enough to overflow the stack of the recursive JSON parser
+        StringBuilder nested = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            nested.append('[');
+        }
+        for (int i = 0; i < 50_000; i++) {
+            nested.append(']');
+        }
+
+        String raml = "#%RAML 0.8\n---\ntitle: Deep\nbaseUri: http://api.example.com\nschemas:\n  - deep: '{\"type\": \"object\", \"enum\": " + nested + "}'\n/a:\n  get:\n";
+        RAMLtoSwagger raml2Swagger = new RAMLtoSwagger();
+        raml2Swagger.setValidationMode(ValidationMode.COLLECT_ALL);
+        JsonNode swagger = objectMapper.readTree(raml2Swagger.convertToSwagger(raml));
+
+        Assert.assertTrue(swagger.path("paths").has("/a"));
+        List<Diagnostic> errors = raml2Swagger.getReport().getErrors();
+        Assert.assertEquals(raml2Swagger.getReport().toString(), 1, errors.size());
+        Assert.assertEquals("deep", errors.get(0).getSchema());
+        Assert.assertEquals("JSON is nested deeper than " + JsonText.MAX_NESTING + " levels", errors.get(0).getCause().getMessage());
+    }
+
+    @Test
+    public void operationSecurity() throws Exception {
+        String raml = "#%RAML 0.8\n---\ntitle: Secured\nbaseUri: http://api.example.com\n"
+                + "securitySchemes:\n  - oauth:\n      type: OAuth 2.0\n      settings:\n        authorizationUri: https://a/auth\n"
+                + "        accessTokenUri: https://a/token\n        authorizationGrants: [ code, token ]\n        scopes: [ READ, WRITE ]\n"
+                + "  - basic:\n      type: Basic Authentication\n"
+                + "securedBy: [ oauth ]\n"
+                + "traits:\n  - secured:\n      securedBy: [ null, oauth: { scopes: [ WRITE ] } ]\n"
+                + "/a:\n  securedBy: [ null ]\n  get:\n  post:\n    is: [ secured ]\n  put:\n    securedBy: [ oauth: { scopes: [ READ ] }, unknown ]\n"
+                + "/b:\n  get:\n  post:\n    securedBy: [ basic, oauth: { scopes: [ WRITE ] } ]\n";
+
+        JsonNode swagger = objectMapper.readTree(raml2Swagger.convertToSwagger(raml));
+        JsonNode paths = swagger.path("paths");
+        Assert.assertEquals("From the resource", objectMapper.readTree("[{}]"), paths.path("/a").path("get").path("security"));
+        Assert.assertEquals("From the trait, one requirement for every flow",
+                objectMapper.readTree("[{}, {\"oauth_accessCode\": [\"WRITE\"]}, {\"oauth_implicit\": [\"WRITE\"]}]"),
+                paths.path("/a").path("post").path("security"));
+        Assert.assertEquals("From the action, without the undefined scheme",
+                objectMapper.readTree("[{\"oauth_accessCode\": [\"READ\"]}, {\"oauth_implicit\": [\"READ\"]}]"),
+                paths.path("/a").path("put").path("security"));
+        Assert.assertEquals("From the API", objectMapper.readTree("[{\"oauth_accessCode\": []}, {\"oauth_implicit\": []}]"),
+                paths.path("/b").path("get").path("security"));
+        Assert.assertEquals("Basic without scopes, next to OAuth 2",
+                objectMapper.readTree("[{\"basic\": []}, {\"oauth_accessCode\": [\"WRITE\"]}, {\"oauth_implicit\": [\"WRITE\"]}]"),
+                paths.path("/b").path("post").path("security"));
+        Assert.assertEquals("basic", swagger.path("securityDefinitions").path("basic").path("type").asText());
+        Assert.assertTrue(raml2Swagger.getReport().getDiagnostics().stream().anyMatch(d -> d.getMessage().contains("'unknown'")));
+        Assert.assertFalse(raml2Swagger.getReport().getDiagnostics().stream().anyMatch(d -> d.getMessage().contains("'basic'")));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+public class RamlValidatorTest {
+    private static final String INVALID_API_RAML = "/invalid-api.raml";
+    private static final String PRODUCT_API_RAML = "/product-api.raml";
+
+    @Test
+    public void validSpecHasNoErrors() throws Exception {
+        RAMLtoSwagger raml2Swagger = new RAMLtoSwagger();
+        raml2Swagger.setValidationMode(ValidationMode.COLLECT_ALL);
+
+        String swagger = raml2Swagger.convertToSwagger(IOUtils.resourceToString(PRODUCT_API_RAML, Charset.forName("UTF-8")));
+        Assert.assertNotNull(swagger);
+        Assert.assertFalse("Product API should be valid: " + raml2Swagger.getReport(), raml2Swagger.getReport().hasErrors());
+    }
+
+    @Test
+    public void collectAll() throws Exception {
+        RAMLtoSwagger raml2Swagger = new RAMLtoSwagger();
+        raml2Swagger.setValidationMode(ValidationMode.COLLECT_ALL);
+
+        String swagger = raml2Swagger.convertToSwagger(IOUtils.resourceToString(INVALID_API_RAML, Charset.forName("UTF-8")));
+        Assert.assertNotNull("Collect-all mode should still produce output", swagger);
+
+        List<Diagnostic> errors = raml2Swagger.getReport().getErrors();
+        Assert.assertTrue("The broken schema should be reported", errors.stream()
+                .anyMatch(d -> "broken".equals(d.getSchema()) && d.getResource() == null));
+        Assert.assertEquals("The broken schema should be reported once by the validation and the conversion", 1, errors.stream()
+                .filter(d -> "broken".equals(d.getSchema())).count());
+        Assert.assertTrue("The unknown schema reference should be reported", errors.stream()
+                .anyMatch(d -> "unknown".equals(d.getSchema()) && "/items".equals(d.getResource()) && "POST".equals(d.getAction())));
+        Assert.assertTrue("The malformed example should be reported", errors.stream()
+                .anyMatch(d -> "/items".equals(d.getResource()) && "POST".equals(d.getAction()) && d.getCause() != null));
+        Assert.assertFalse("Valid resources should not be reported", errors.stream()
+                .anyMatch(d -> "/items/{itemId}".equals(d.getResource())));
+    }
+
+    @Test
+    public void failFast() throws Exception {
+        RAMLtoSwagger raml2Swagger = new RAMLtoSwagger();
+        raml2Swagger.setValidationMode(ValidationMode.FAIL_FAST);
+
+        String swagger = raml2Swagger.convertToSwagger(IOUtils.resourceToString(INVALID_API_RAML, Charset.forName("UTF-8")));
+        Assert.assertNull("Fail-fast mode should produce no output", swagger);
+        Assert.assertTrue(raml2Swagger.getReport().isStopped());
+        Assert.assertTrue(raml2Swagger.getReport().hasErrors());
+    }
+
+    @Test
+    public void conversionErrorsAreReportedWithoutValidation() throws Exception {
+        RAMLtoSwagger raml2Swagger = new RAMLtoSwagger();
+
+        String swagger = raml2Swagger.convertToSwagger(IOUtils.resourceToString(INVALID_API_RAML, Charset.forName("UTF-8")));
+        Assert.assertNotNull(swagger);
+        Assert.assertTrue("The broken schema should be reported by the conversion", raml2Swagger.getReport().getErrors().stream()
+                .anyMatch(d -> "broken".equals(d.getSchema())));
+    }
+}
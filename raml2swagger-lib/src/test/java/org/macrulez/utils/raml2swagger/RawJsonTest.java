@@ -0,0 +1,74 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+
+public class RawJsonTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void scan() {
+        Assert.assertNotNull(RawJson.of("{\"a\": [1, 2, {\"b\": \"c\"}]}"));
+        Assert.assertNotNull(RawJson.of("[1, 2]\n"));
+        Assert.assertNotNull(RawJson.of("42"));
+        Assert.assertNull("Truncated JSON", RawJson.of("{\"a\": [1, 2"));
+        Assert.assertNull("Two values", RawJson.of("{} {}"));
+        Assert.assertNull("Not JSON", RawJson.of("this is not JSON"));
+        Assert.assertNull(RawJson.of(""));
+    }
+
+    @Test
+    public void scanExcludedKeys() {
+        Assert.assertNotNull(RawJson.ofObjectWithout("{\"type\": \"object\", \"properties\": {\"required\": true}}", "$schema", "required"));
+        Assert.assertNull("Top level key to remove", RawJson.ofObjectWithout("{\"type\": \"object\", \"required\": true}", "$schema", "required"));
+        Assert.assertNull("Not an object", RawJson.ofObjectWithout("[1]", "$schema", "required"));
+    }
+
+    @Test
+    public void passthroughProducesTheSameDocument() throws Exception {
+        String raml = IOUtils.resourceToString("/product-api.raml", Charset.forName("UTF-8"));
+        assertSameOutput(raml, null);
+
+        SyntheticRamlGenerator generator = new SyntheticRamlGenerator().fanOut(3).depth(2).schemaCount(2).includeCount(4);
+        assertSameOutput(generator.generate(), generator);
+    }
+
+    private void assertSameOutput(String raml, SyntheticRamlGenerator generator) throws Exception {
+        RAMLtoSwagger parsing = new RAMLtoSwagger();
+        RAMLtoSwagger passthrough = new RAMLtoSwagger();
+        passthrough.setRawJsonPassthrough(true);
+
+        String expected = parsing.convertToSwagger(raml, generator == null ? null : generator.resourceLoader());
+        String actual = passthrough.convertToSwagger(raml, generator == null ? null : generator.resourceLoader());
+        Assert.assertNotNull(actual);
+
+        JsonNode expectedJson = objectMapper.readTree(expected);
+        JsonNode actualJson = objectMapper.readTree(actual);
+        Assert.assertEquals("Raw JSON should be spliced without changing the document", expectedJson, actualJson);
+    }
+}
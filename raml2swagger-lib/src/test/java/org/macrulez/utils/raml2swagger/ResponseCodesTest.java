@@ -0,0 +1,60 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ResponseCodesTest {
+
+    @Test
+    public void standardCodes() {
+        Assert.assertEquals("OK", ResponseCodes.reasonPhrase(200));
+        Assert.assertEquals("Not Found", ResponseCodes.reasonPhrase("404"));
+        Assert.assertNull("Unknown codes should have no phrase", ResponseCodes.reasonPhrase(299));
+    }
+
+    @Test
+    public void parseKeys() {
+        Assert.assertEquals(201, ResponseCodes.parse("201"));
+        Assert.assertEquals(-1, ResponseCodes.parse("default"));
+        Assert.assertEquals(-1, ResponseCodes.parse("2xx"));
+        Assert.assertEquals(-1, ResponseCodes.parse("2000"));
+        Assert.assertNull("Invalid keys should have no phrase", ResponseCodes.reasonPhrase("abc"));
+    }
+
+    @Test
+    public void configuredCodes() {
+        Assert.assertEquals("Codes should be read from the classpath configuration", "Enhance Your Calm", ResponseCodes.reasonPhrase(420));
+        Assert.assertEquals("Network Connect Timeout Error", ResponseCodes.reasonPhrase("599"));
+    }
+
+    @Test
+    public void registeredCodes() {
+        ResponseCodes.register(298, "Custom Success");
+        Assert.assertEquals("Custom Success", ResponseCodes.reasonPhrase("298"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void registerOutOfRange() {
+        ResponseCodes.register(600, "Too Big");
+    }
+}
@@ -0,0 +1,173 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.raml.parser.loader.ResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SchemaRefResolverTest {
+    private static final String MONEY = "http://schemas.example.com/money.json";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, String> documents = new HashMap<>();
+    private final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+
+    public SchemaRefResolverTest() {
+        documents.put("item.json", "{\"$schema\": \"http://json-schema.org/draft-03/schema\", \"type\": \"object\", "
+                + "\"properties\": {\"name\": {\"type\": \"string\", \"required\": true}, \"price\": {\"$ref\": \"" + MONEY + "\"}}}");
+        documents.put(MONEY, "{\"type\": \"object\", \"properties\": {\"amount\": {\"type\": \"number\"}, \"currency\": {\"$ref\": \"#/definitions/currency\"}},"
+                + " \"definitions\": {\"currency\": {\"type\": \"string\", \"enum\": [\"EUR\", \"USD\"]}}}");
+        documents.put("node.json", "{\"type\": \"object\", \"properties\": {\"children\": {\"type\": \"array\", \"items\": {\"$ref\": \"node.json\"}}}}");
+    }
+
+    private ResourceLoader loader() {
+        return name -> {
+            fetches.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet();
+            String document = documents.get(name);
+            return document == null ? null : new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static String spec(String schema) {
+        return "#%RAML 0.8\n---\ntitle: References\nbaseUri: http://api.example.com\nschemas:\n"
+                + "  - order: '{\"type\": \"object\", \"properties\": {" + schema + "}}'\n"
+                + "/orders:\n  post:\n    body:\n      application/json:\n        schema: '{\"type\": \"object\", \"properties\": {\"order\": {\"$ref\": \"order\"}}}'\n";
+    }
+
+    private JsonNode convert(RefResolution mode, SchemaCache cache, String schema) throws Exception {
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setRefResolution(mode);
+        converter.setSchemaCache(cache);
+        converter.setRawJsonPassthrough(true);
+        String json = converter.convertToSwagger(spec(schema), loader());
+        Assert.assertNotNull(converter.getReport().toString(), json);
+        return objectMapper.readTree(json);
+    }
+
+    @Test
+    public void inline() throws Exception {
+        JsonNode json = convert(RefResolution.INLINE, new SchemaCache(1 << 20), "\"item\": {\"$ref\": \"item.json\", \"description\": \"Ordered item\"}");
+
+        JsonNode item = json.path("definitions").path("order").path("properties").path("item");
+        Assert.assertEquals("Ordered item", item.path("description").asText());
+        Assert.assertTrue("Cleaned", item.path("$schema").isMissingNode());
+        Assert.assertTrue("Nested required flags removed", item.path("properties").path("name").path("required").isMissingNode());
+        JsonNode price = item.path("properties").path("price");
+        Assert.assertEquals("number", price.path("properties").path("amount").path("type").asText());
+        Assert.assertEquals("Fragment of the referenced document", "EUR", price.path("properties").path("currency").path("enum").path(0).asText());
+
+        //References to the schemas of the spec point to their definitions, also from inline schemas
+        JsonNode body = json.path("paths").path("/orders").path("post").path("parameters").path(0).path("schema");
+        Assert.assertEquals("#/definitions/order", body.path("properties").path("order").path("$ref").asText());
+        Assert.assertEquals(1, json.path("definitions").size());
+    }
+
+    @Test
+    public void definitions() throws Exception {
+        JsonNode json = convert(RefResolution.DEFINITIONS, new SchemaCache(1 << 20), "\"item\": {\"$ref\": \"item.json\"}, \"other\": {\"$ref\": \"item.json\"}");
+
+        JsonNode definitions = json.path("definitions");
+        Assert.assertEquals("#/definitions/item", definitions.path("order").path("properties").path("item").path("$ref").asText());
+        Assert.assertEquals("#/definitions/item", definitions.path("order").path("properties").path("other").path("$ref").asText());
+        Assert.assertEquals("Lifted like the schemas of the spec", "name", definitions.path("item").path("required").path(0).asText());
+        Assert.assertEquals("#/definitions/money", definitions.path("item").path("properties").path("price").path("$ref").asText());
+        Assert.assertEquals("#/definitions/money_currency", definitions.path("money").path("properties").path("currency").path("$ref").asText());
+        Assert.assertEquals("string", definitions.path("money_currency").path("type").asText());
+        Assert.assertEquals("Fetched once", 1, fetches.get("item.json").get());
+    }
+
+    @Test
+    public void cycles() throws Exception {
+        for (RefResolution mode : new RefResolution[]{RefResolution.INLINE, RefResolution.DEFINITIONS}) {
+            JsonNode json = convert(mode, new SchemaCache(1 << 20), "\"tree\": {\"$ref\": \"node.json\"}");
+
+            JsonNode definitions = json.path("definitions");
+            JsonNode tree = definitions.path("order").path("properties").path("tree");
+            if (mode == RefResolution.INLINE) {
+                tree = tree.path("properties").path("children").path("items");
+            }
+            Assert.assertEquals(mode.name(), "#/definitions/node", tree.path("$ref").asText());
+            Assert.assertEquals(mode.name(), "#/definitions/node", definitions.path("node").path("properties").path("children").path("items").path("$ref").asText());
+        }
+    }
+
+    @Test
+    public void missingReference() {
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setRefResolution(RefResolution.INLINE);
+        String json = converter.convertToSwagger(spec("\"item\": {\"$ref\": \"missing.json\"}"), loader());
+        Assert.assertNotNull(json);
+        Assert.assertTrue("Kept", json.contains("\"$ref\": \"missing.json\""));
+        Assert.assertTrue(converter.getReport().toString(), converter.getReport().toString().contains("Referenced schema missing.json not found"));
+    }
+
+    @Test
+    public void sharedCache() throws Exception {
+        SchemaCache cache = new SchemaCache(1 << 20);
+        convert(RefResolution.INLINE, cache, "\"item\": {\"$ref\": \"item.json\"}");
+        convert(RefResolution.DEFINITIONS, cache, "\"item\": {\"$ref\": \"item.json\"}");
+
+        Assert.assertEquals("Relative names fetched by every conversion", 2, fetches.get("item.json").get());
+        Assert.assertEquals("Absolute URLs fetched once", 1, fetches.get(MONEY).get());
+        Assert.assertEquals(1, cache.count());
+    }
+
+    @Test
+    public void cachePerConverter() throws Exception {
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setRefResolution(RefResolution.INLINE);
+        Assert.assertNotNull(converter.convertToSwagger(spec("\"item\": {\"$ref\": \"item.json\"}"), loader()));
+        Assert.assertNotNull(converter.convertToSwagger(spec("\"item\": {\"$ref\": \"item.json\"}"), loader()));
+        Assert.assertEquals("Fetched once by the converter", 1, fetches.get(MONEY).get());
+
+        RAMLtoSwagger other = new RAMLtoSwagger();
+        other.setRefResolution(RefResolution.INLINE);
+        Assert.assertNotNull(other.convertToSwagger(spec("\"item\": {\"$ref\": \"item.json\"}"), loader()));
+        Assert.assertEquals("Fetched again by another converter", 2, fetches.get(MONEY).get());
+    }
+
+    @Test
+    public void eviction() {
+        SchemaCache cache = new SchemaCache(100);
+        cache.put("a", new JSONObject(), 40);
+        cache.put("b", new JSONObject(), 40);
+        Assert.assertNotNull(cache.get("a"));
+        cache.put("c", new JSONObject(), 40);
+
+        Assert.assertNull("Least recently used evicted", cache.get("b"));
+        Assert.assertNotNull(cache.get("a"));
+        Assert.assertEquals(80, cache.size());
+
+        cache.put("d", new JSONObject(), 101);
+        Assert.assertNull("Larger than the cache", cache.get("d"));
+    }
+}
@@ -0,0 +1,204 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class SwaggerMergerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    //Spec with an "item" schema of the given id type, used by the responses of /items
+    private static String spec(String title, String basePath, String idType) {
+        return "#%RAML 0.8\n" +
+                "---\n" +
+                "title: " + title + "\n" +
+                "version: v1\n" +
+                "baseUri: http://api.example.com" + basePath + "\n" +
+                "schemas:\n" +
+                "  - item: |\n" +
+                "      { \"type\": \"object\", \"properties\": { \"id\": { \"type\": \"" + idType + "\", \"required\": true } } }\n" +
+                "/items:\n" +
+                "  get:\n" +
+                "    responses:\n" +
+                "      200:\n" +
+                "        body:\n" +
+                "          application/json:\n" +
+                "            schema: item\n" +
+                "/" + title.toLowerCase() + ":\n" +
+                "  get:\n" +
+                "    description: Only in " + title + "\n";
+    }
+
+    //Spec with the same "order" schema text, referring to an "item" schema of the given id type
+    private static String orderSpec(String idType) {
+        return "#%RAML 0.8\n" +
+                "---\n" +
+                "title: Orders\n" +
+                "version: v1\n" +
+                "baseUri: http://api.example.com/api\n" +
+                "schemas:\n" +
+                "  - item: |\n" +
+                "      { \"type\": \"object\", \"properties\": { \"id\": { \"type\": \"" + idType + "\" } } }\n" +
+                "  - order: |\n" +
+                "      { \"type\": \"object\", \"properties\": { \"item\": { \"$ref\": \"#/definitions/item\" } } }\n" +
+                "/orders:\n" +
+                "  get:\n" +
+                "    responses:\n" +
+                "      200:\n" +
+                "        body:\n" +
+                "          application/json:\n" +
+                "            schema: order\n";
+    }
+
+    private JsonNode merge(SwaggerMerger merger, String... specs) throws Exception {
+        SwaggerMerger.Source[] sources = new SwaggerMerger.Source[specs.length / 2];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = SwaggerMerger.Source.of(specs[2 * i], specs[2 * i + 1], null);
+        }
+
+        SwaggerMerger.Merged merged = merger.merge(Arrays.asList(sources));
+        if (merged == null) {
+            return null;
+        }
+
+        String json = merged.toJson();
+        Assert.assertTrue("Merged output should be valid Swagger", SwaggerValidator.validate(new StringReader(json)).isEmpty());
+        return objectMapper.readTree(json);
+    }
+
+    @Test
+    public void differentBasePaths() throws Exception {
+        JsonNode json = merge(new SwaggerMerger(), "orders", spec("Orders", "/orders", "integer"), "stock", spec("Stock", "/stock", "string"));
+        Assert.assertNotNull(json);
+
+        Assert.assertEquals("Orders", json.path("info").path("title").asText());
+        Assert.assertEquals("/", json.path("basePath").asText());
+        Assert.assertTrue(json.path("paths").has("/orders/items"));
+        Assert.assertTrue(json.path("paths").has("/stock/items"));
+        Assert.assertTrue(json.path("paths").has("/stock/stock"));
+        Assert.assertEquals(4, json.path("paths").size());
+    }
+
+    @Test
+    public void identicalEntriesAreShared() throws Exception {
+        SwaggerMerger merger = new SwaggerMerger();
+        merger.setConflictPolicy(ConflictPolicy.FAIL);
+        JsonNode json = merge(merger, "orders", spec("Orders", "/api", "integer"), "stock", spec("Stock", "/api", "integer"));
+        Assert.assertNotNull("Equal entries are not a conflict: " + merger.getReport(), json);
+
+        Assert.assertEquals("/api", json.path("basePath").asText());
+        Assert.assertEquals(1, json.path("definitions").size());
+        Assert.assertEquals(3, json.path("paths").size());
+    }
+
+    @Test
+    public void prefixConflicts() throws Exception {
+        SwaggerMerger merger = new SwaggerMerger();
+        merger.setTitle("Shop");
+        JsonNode json = merge(merger, "orders", spec("Orders", "/api", "integer"), "stock", spec("Stock", "/api", "string"));
+        Assert.assertNotNull(json);
+
+        Assert.assertEquals("Shop", json.path("info").path("title").asText());
+        Assert.assertEquals("integer", json.path("definitions").path("item").path("properties").path("id").path("type").asText());
+        Assert.assertEquals("string", json.path("definitions").path("stock_item").path("properties").path("id").path("type").asText());
+        Assert.assertEquals("#/definitions/item",
+                json.path("paths").path("/items").path("get").path("responses").path("200").path("schema").path("$ref").asText());
+        Assert.assertEquals("The references of the renamed spec should follow",
+                "#/definitions/stock_item",
+                json.path("paths").path("/stock/items").path("get").path("responses").path("200").path("schema").path("$ref").asText());
+        Assert.assertFalse(merger.getReport().hasErrors());
+    }
+
+    @Test
+    public void referencesToRenamedDefinitions() throws Exception {
+        SwaggerMerger merger = new SwaggerMerger();
+        JsonNode json = merge(merger, "orders", orderSpec("integer"), "stock", orderSpec("string"));
+        Assert.assertNotNull(json);
+
+        JsonNode definitions = json.path("definitions");
+        Assert.assertEquals("#/definitions/item", definitions.path("order").path("properties").path("item").path("$ref").asText());
+        Assert.assertEquals("The order of the renamed item should be renamed too",
+                "#/definitions/stock_item", definitions.path("stock_order").path("properties").path("item").path("$ref").asText());
+        Assert.assertEquals("#/definitions/stock_order",
+                json.path("paths").path("/stock/orders").path("get").path("responses").path("200").path("schema").path("$ref").asText());
+    }
+
+    @Test
+    public void failOnConflict() throws Exception {
+        SwaggerMerger merger = new SwaggerMerger();
+        merger.setConflictPolicy(ConflictPolicy.FAIL);
+        Assert.assertNull(merge(merger, "orders", spec("Orders", "/api", "integer"), "stock", spec("Stock", "/api", "string")));
+        Assert.assertTrue(merger.getReport().getErrors().stream().anyMatch(d -> "item".equals(d.getSchema())));
+    }
+
+    @Test
+    public void lastWins() throws Exception {
+        SwaggerMerger merger = new SwaggerMerger();
+        merger.setConflictPolicy(ConflictPolicy.LAST_WINS);
+        JsonNode json = merge(merger, "orders", spec("Orders", "/api", "integer"), "stock", spec("Stock", "/api", "string"));
+        Assert.assertNotNull(json);
+
+        Assert.assertEquals("string", json.path("definitions").path("item").path("properties").path("id").path("type").asText());
+        Assert.assertFalse(merger.getReport().getDiagnostics().isEmpty());
+    }
+
+    @Test
+    public void conversionSettings() throws Exception {
+        File latin1 = folder.newFile("cafe.raml");
+        Files.write(latin1.toPath(), spec("Caf\u00e9", "/api", "integer").getBytes(StandardCharsets.ISO_8859_1));
+
+        SwaggerMerger merger = new SwaggerMerger();
+        merger.setCharset(StandardCharsets.ISO_8859_1);
+        SwaggerMerger.Merged merged = merger.merge(Collections.singletonList(SwaggerMerger.Source.of(latin1)));
+        Assert.assertNotNull(merger.getReport().toString(), merged);
+        Assert.assertEquals("Caf\u00e9", objectMapper.readTree(merged.toJson()).path("info").path("title").asText());
+
+        merger = new SwaggerMerger();
+        merger.setOutputValidation(true);
+        merger.merge(Collections.singletonList(SwaggerMerger.Source.of("invalid",
+                IOUtils.resourceToString("/invalid-api.raml", StandardCharsets.UTF_8), null)));
+        Assert.assertTrue("The output of the spec should be validated: " + merger.getReport(), merger.getReport().getErrors().stream()
+                .anyMatch(d -> d.getMessage().startsWith("invalid: Output is not valid")));
+    }
+
+    @Test
+    public void failedConversionFailsTheMerge() throws Exception {
+        SwaggerMerger merger = new SwaggerMerger();
+        Assert.assertNull(merge(merger, "orders", spec("Orders", "/api", "integer"), "broken", "#%RAML 0.8\n---\ntitle: [unclosed\n"));
+        Assert.assertTrue(merger.getReport().hasErrors());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.List;
+
+public class SwaggerValidatorTest {
+    private static final String PRODUCT_API_RAML = "/product-api.raml";
+    private static final String INVALID_API_RAML = "/invalid-api.raml";
+
+    @Test
+    public void validOutput() throws Exception {
+        RAMLtoSwagger raml2Swagger = new RAMLtoSwagger();
+        raml2Swagger.setOutputValidation(true);
+
+        String swagger = raml2Swagger.convertToSwagger(IOUtils.resourceToString(PRODUCT_API_RAML, Charset.forName("UTF-8")));
+        Assert.assertNotNull(swagger);
+        Assert.assertFalse("Product API output should be valid Swagger: " + raml2Swagger.getReport(), raml2Swagger.getReport().hasErrors());
+        Assert.assertTrue("Streamed output should be valid too", SwaggerValidator.validate(new StringReader(swagger)).isEmpty());
+    }
+
+    @Test
+    public void invalidOutputPointsToResource() throws Exception {
+        RAMLtoSwagger raml2Swagger = new RAMLtoSwagger();
+        raml2Swagger.setOutputValidation(true);
+
+        String swagger = raml2Swagger.convertToSwagger(IOUtils.resourceToString(INVALID_API_RAML, Charset.forName("UTF-8")));
+        Assert.assertNotNull(swagger);
+
+        List<Diagnostic> errors = raml2Swagger.getReport().getErrors();
+        Assert.assertTrue("The invalid parameter should be located: " + errors, errors.stream()
+                .anyMatch(d -> d.getMessage().startsWith("Output is not valid") && "/items".equals(d.getResource()) && "GET".equals(d.getAction())));
+    }
+
+    @Test
+    public void streamingOutput() throws Exception {
+        Assert.assertFalse("An empty document is not valid Swagger", SwaggerValidator.validate(new StringReader("{}")).isEmpty());
+        Assert.assertTrue(SwaggerValidator.validate(new StringReader(
+                "{\"swagger\": \"2.0\", \"info\": {\"title\": \"t\", \"version\": \"1\"}, \"paths\": {}}")).isEmpty());
+    }
+
+    @Test
+    public void exclusiveMinimum() throws Exception {
+        String parameter = "{\"swagger\": \"2.0\", \"info\": {\"title\": \"t\", \"version\": \"1\"}, \"paths\": {\"/items\": {\"get\": "
+                + "{\"parameters\": [{\"name\": \"size\", \"in\": \"query\", \"type\": \"number\", \"multipleOf\": %s}], "
+                + "\"responses\": {\"200\": {\"description\": \"OK\"}}}}}}";
+
+        Assert.assertTrue(SwaggerValidator.validate(new StringReader(String.format(parameter, "5"))).isEmpty());
+        Assert.assertFalse("multipleOf must be greater than 0", SwaggerValidator.validate(new StringReader(String.format(parameter, "0"))).isEmpty());
+    }
+}
@@ -0,0 +1,249 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.Getter;
+import org.raml.parser.loader.ResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic RAML 0.8 specs used by the scaling tests.
+ * <p>
+ * The shape of the spec is controlled by the resource depth, the fan-out of every resource, the number of actions per
+ * resource, the number of parameters per action, the number of top level schemas and the number of files pulled in
+ * through <code>!include</code>. The same parameters and seed always produce the very same document.
+ */
+class SyntheticRamlGenerator {
+    private static final String[] ACTIONS = {"get", "post", "put", "delete", "patch", "head", "options"};
+    private static final String[] PARAM_TYPES = {"string", "integer", "number", "boolean", "date"};
+
+    private int depth = 3;
+    private int fanOut = 4;
+    private int actionsPerResource = 2;
+    private int parameterCount = 2;
+    private int schemaCount = 4;
+    private int includeCount = 2;
+    private int maxResources = Integer.MAX_VALUE;
+    private long seed = 42L;
+
+    @Getter
+    private int resourceCount;
+
+    /* Include file name -> content of the last generated spec */
+    @Getter
+    private final Map<String, String> includes = new LinkedHashMap<>();
+
+    SyntheticRamlGenerator depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    SyntheticRamlGenerator fanOut(int fanOut) {
+        this.fanOut = fanOut;
+        return this;
+    }
+
+    SyntheticRamlGenerator actionsPerResource(int actionsPerResource) {
+        this.actionsPerResource = Math.min(actionsPerResource, ACTIONS.length);
+        return this;
+    }
+
+    SyntheticRamlGenerator parameterCount(int parameterCount) {
+        this.parameterCount = parameterCount;
+        return this;
+    }
+
+    SyntheticRamlGenerator schemaCount(int schemaCount) {
+        this.schemaCount = schemaCount;
+        return this;
+    }
+
+    SyntheticRamlGenerator includeCount(int includeCount) {
+        this.includeCount = includeCount;
+        return this;
+    }
+
+    SyntheticRamlGenerator maxResources(int maxResources) {
+        this.maxResources = maxResources;
+        return this;
+    }
+
+    SyntheticRamlGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    //Smallest fan-out/depth combination holding at least the given number of resources, capped at exactly that many
+    SyntheticRamlGenerator resources(int count) {
+        depth = 1;
+        long total = fanOut;
+        while (total < count) {
+            depth++;
+            total = total * fanOut + fanOut;
+        }
+        return maxResources(count);
+    }
+
+    //Loader serving the include files of the last generated spec from memory
+    ResourceLoader resourceLoader() {
+        return resourceName -> {
+            String content = includes.get(resourceName);
+            return content == null ? null : new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    String generate() {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder(1024);
+        includes.clear();
+        resourceCount = 0;
+
+        sb.append("#%RAML 0.8\n---\n");
+        sb.append("title: Synthetic API\n");
+        sb.append("version: v1\n");
+        sb.append("baseUri: http://api.example.com/synthetic/{version}\n");
+        sb.append("protocols: [ HTTP, HTTPS ]\n");
+        sb.append("mediaType: application/json\n");
+
+        //Schemas: the first includeCount ones are pulled in from include files, the others are inline
+        if (schemaCount > 0) {
+            sb.append("schemas:\n");
+            for (int i = 0; i < schemaCount; i++) {
+                String schema = schema(i, random);
+                if (i < includeCount) {
+                    String fileName = "schema" + i + ".json";
+                    includes.put(fileName, schema);
+                    sb.append("  - schema").append(i).append(": !include ").append(fileName).append('\n');
+                } else {
+                    sb.append("  - schema").append(i).append(": |\n");
+                    indent(sb, schema, "      ");
+                }
+            }
+        }
+
+        //Examples shared through includes, if there are more includes than schemas
+        for (int i = schemaCount; i < includeCount; i++) {
+            includes.put("example" + i + ".json", "{\"id\": " + i + ", \"name\": \"example" + i + "\"}");
+        }
+
+        resources(sb, "", 1, random);
+        return sb.toString();
+    }
+
+    private void resources(StringBuilder sb, String indent, int level, Random random) {
+        for (int i = 0; i < fanOut && resourceCount < maxResources; i++) {
+            int id = resourceCount++;
+            boolean uriParam = level > 1 && i == 0;
+
+            if (uriParam) {
+                sb.append(indent).append("/{id").append(id).append("}:\n");
+                sb.append(indent).append("  uriParameters:\n");
+                sb.append(indent).append("    id").append(id).append(":\n");
+                sb.append(indent).append("      type: integer\n");
+                sb.append(indent).append("      description: Identifier of level ").append(level).append('\n');
+            } else {
+                sb.append(indent).append("/res").append(id).append(":\n");
+            }
+            sb.append(indent).append("  description: Resource ").append(id).append('\n');
+
+            for (int a = 0; a < actionsPerResource; a++) {
+                action(sb, indent + "  ", ACTIONS[a], id, random);
+            }
+
+            if (level < depth) {
+                resources(sb, indent + "  ", level + 1, random);
+            }
+        }
+    }
+
+    private void action(StringBuilder sb, String indent, String action, int id, Random random) {
+        sb.append(indent).append(action).append(":\n");
+        sb.append(indent).append("  description: ").append(action).append(" resource ").append(id).append('\n');
+
+        if (parameterCount > 0) {
+            sb.append(indent).append("  queryParameters:\n");
+            for (int p = 0; p < parameterCount; p++) {
+                sb.append(indent).append("    q").append(p).append(":\n");
+                sb.append(indent).append("      type: ").append(PARAM_TYPES[random.nextInt(PARAM_TYPES.length)]).append('\n');
+                sb.append(indent).append("      description: Query parameter ").append(p).append('\n');
+                if (p % 2 == 0) {
+                    sb.append(indent).append("      required: true\n");
+                }
+            }
+            sb.append(indent).append("  headers:\n");
+            sb.append(indent).append("    X-Request-Id:\n");
+            sb.append(indent).append("      type: string\n");
+        }
+
+        String schema = schemaCount > 0 ? "schema" + random.nextInt(schemaCount) : null;
+        if (schema != null && ("post".equals(action) || "put".equals(action) || "patch".equals(action))) {
+            sb.append(indent).append("  body:\n");
+            sb.append(indent).append("    application/json:\n");
+            sb.append(indent).append("      schema: ").append(schema).append('\n');
+        }
+
+        sb.append(indent).append("  responses:\n");
+        sb.append(indent).append("    200:\n");
+        sb.append(indent).append("      body:\n");
+        sb.append(indent).append("        application/json:\n");
+        if (schema != null) {
+            sb.append(indent).append("          schema: ").append(schema).append('\n');
+        }
+        if (includeCount > schemaCount) {
+            int example = schemaCount + random.nextInt(includeCount - schemaCount);
+            sb.append(indent).append("          example: !include example").append(example).append(".json\n");
+        } else {
+            sb.append(indent).append("          example: {\"id\": ").append(id).append("}\n");
+        }
+        sb.append(indent).append("    404:\n");
+        sb.append(indent).append("      description: Resource ").append(id).append(" not found\n");
+    }
+
+    private String schema(int index, Random random) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"$schema\": \"http://json-schema.org/draft-03/schema\",\n");
+        sb.append("  \"type\": \"object\",\n");
+        sb.append("  \"required\": true,\n");
+        sb.append("  \"properties\": {\n");
+        int properties = 2 + random.nextInt(4);
+        for (int i = 0; i < properties; i++) {
+            sb.append("    \"field").append(index).append('_').append(i).append("\": {\n");
+            sb.append("      \"type\": \"").append(i == 0 ? "integer" : "string").append("\",\n");
+            sb.append("      \"required\": ").append(i % 2 == 0).append('\n');
+            sb.append("    }").append(i < properties - 1 ? "," : "").append('\n');
+        }
+        sb.append("  }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private static void indent(StringBuilder sb, String text, String indent) {
+        for (String line : text.split("\n")) {
+            sb.append(indent).append(line).append('\n');
+        }
+    }
+}
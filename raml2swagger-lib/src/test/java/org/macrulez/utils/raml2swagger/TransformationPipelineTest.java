@@ -0,0 +1,209 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.StringReader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+public class TransformationPipelineTest {
+    private static final String RAML = "#%RAML 0.8\n" +
+            "---\n" +
+            "title: Shop\n" +
+            "baseUri: http://api.example.com/{tenant}/v1\n" +
+            "/items:\n" +
+            "  get:\n" +
+            "    responses:\n" +
+            "      200:\n" +
+            "        body:\n" +
+            "          application/json:\n" +
+            "            schema: |\n" +
+            "              { \"$schema\": \"http://json-schema.org/draft-03/schema\", \"type\": \"array\", \"required\": true }\n" +
+            "  post:\n" +
+            "    description: Add an item\n" +
+            "  /{id}:\n" +
+            "    get:\n" +
+            "/internal:\n" +
+            "  get:\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    //Tags every operation with the first segment of its path
+    public static class TagStage implements TransformationStage {
+        @Override
+        public JSONObject operation(String path, String method, JSONObject operation, TransformationContext context) throws JSONException {
+            return operation.put("tags", new JSONArray().put(path.split("/")[1]));
+        }
+    }
+
+    //Drops the internal resources and the POST operations, marks the document
+    public static class FilterStage implements TransformationStage {
+        @Override
+        public int getOrder() {
+            return -1;
+        }
+
+        @Override
+        public JSONObject operation(String path, String method, JSONObject operation, TransformationContext context) {
+            return "post".equals(method) ? null : operation;
+        }
+
+        @Override
+        public String path(String path, JSONObject operations, TransformationContext context) {
+            return path.startsWith(context.getPathPrefix() + "/internal") ? null : path;
+        }
+
+        @Override
+        public void document(JSONObject swagger, TransformationContext context) throws JSONException {
+            swagger.put("x-source", context.getTitle());
+        }
+    }
+
+    //Rewrites the inline schemas
+    public static class SchemaStage implements TransformationStage {
+        @Override
+        public JSONObject inlineSchema(JSONObject schema, TransformationContext context) throws JSONException {
+            return schema.put("x-inline", true);
+        }
+    }
+
+    //Fails on every definition
+    public static class FailingStage implements TransformationStage {
+        @Override
+        public JSONObject definition(String name, JSONObject definition, TransformationContext context) {
+            throw new IllegalStateException("No definitions");
+        }
+    }
+
+    private JsonNode convert(TransformationPipeline pipeline, boolean rawJsonPassthrough) throws Exception {
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setPipeline(pipeline);
+        converter.setRawJsonPassthrough(rawJsonPassthrough);
+        String swagger = converter.convertToSwagger(RAML);
+        Assert.assertNotNull(swagger);
+        return objectMapper.readTree(swagger);
+    }
+
+    @Test
+    public void builtinStages() throws Exception {
+        JsonNode json = convert(TransformationPipeline.builtin(), false);
+
+        JsonNode items = json.path("paths").path("/{tenant}/v1/items");
+        Assert.assertTrue("Paths should get the templated part of the base URI", items.isObject());
+        Assert.assertEquals("OK", items.path("post").path("responses").path("200").path("description").asText());
+
+        JsonNode schema = items.path("get").path("responses").path("200").path("schema");
+        Assert.assertEquals("array", schema.path("type").asText());
+        Assert.assertFalse(schema.has("$schema"));
+        Assert.assertFalse(schema.has("required"));
+    }
+
+    @Test
+    public void userStages() throws Exception {
+        JsonNode json = convert(TransformationPipeline.builtin().with(new FilterStage(), new TagStage()), false);
+
+        Assert.assertEquals("Shop", json.path("x-source").asText());
+        Assert.assertFalse(json.path("paths").has("/{tenant}/v1/internal"));
+        Assert.assertTrue("Sub-resources of a kept resource stay", json.path("paths").has("/{tenant}/v1/items/{id}"));
+
+        JsonNode items = json.path("paths").path("/{tenant}/v1/items");
+        Assert.assertFalse(items.has("post"));
+        Assert.assertEquals("Operations should see the RAML path", "items", items.path("get").path("tags").path(0).asText());
+    }
+
+    @Test
+    public void modelStages() throws Exception {
+        ApiModel model = new RAMLtoSwagger().toModel(new StringReader(RAML), null);
+        Assert.assertNotNull(model);
+
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setPipeline(TransformationPipeline.builtin().with(new FilterStage(), new TransformationStage() {
+            @Override
+            public void document(JSONObject swagger, TransformationContext context) {
+                Assert.assertNull("A model has no RAML", context.getRaml());
+            }
+        }));
+        JsonNode json = objectMapper.readTree(converter.convertToSwagger(model));
+
+        Assert.assertEquals(converter.getReport().toString(), 0, converter.getReport().getDiagnostics().size());
+        Assert.assertEquals("Shop", json.path("x-source").asText());
+        Assert.assertFalse(json.path("paths").has("/{tenant}/v1/internal"));
+    }
+
+    @Test
+    public void inlineSchemaStageDisablesPassthrough() throws Exception {
+        TransformationPipeline pipeline = TransformationPipeline.builtin().with(new SchemaStage());
+        Assert.assertTrue(pipeline.isRewritingInlineSchemas());
+        Assert.assertFalse(TransformationPipeline.builtin().with(new TagStage()).isRewritingInlineSchemas());
+
+        JsonNode json = convert(pipeline, true);
+        JsonNode schema = json.path("paths").path("/{tenant}/v1/items").path("get").path("responses").path("200").path("schema");
+        Assert.assertTrue(schema.path("x-inline").asBoolean());
+    }
+
+    @Test
+    public void failingStage() throws Exception {
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setPipeline(TransformationPipeline.builtin().with(new FailingStage()));
+        String swagger = converter.convertToSwagger(RAML.replace("/items:\n", "schemas:\n  - item: '{\"type\": \"object\", \"properties\": {}}'\n/items:\n"));
+        Assert.assertNotNull(swagger);
+
+        List<Diagnostic> errors = converter.getReport().getErrors();
+        Assert.assertEquals(converter.getReport().toString(), 1, errors.size());
+        Assert.assertEquals("item", errors.get(0).getSchema());
+        Assert.assertEquals("Transformation stage " + FailingStage.class.getName() + " failed", errors.get(0).getMessage());
+        Assert.assertTrue(errors.get(0).getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void serviceLoaderStages() throws Exception {
+        File services = new File(folder.getRoot(), "META-INF/services/" + TransformationStage.class.getName());
+        Assert.assertTrue(services.getParentFile().mkdirs());
+        Files.write(services.toPath(), Arrays.asList(TagStage.class.getName(), FilterStage.class.getName()), StandardCharsets.UTF_8);
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{folder.getRoot().toURI().toURL()}, getClass().getClassLoader())) {
+            TransformationPipeline pipeline = TransformationPipeline.load(classLoader);
+
+            int size = TransformationPipeline.builtin().getStages().size();
+            Assert.assertEquals(size + 2, pipeline.getStages().size());
+            Assert.assertTrue("Stages should run by their order", pipeline.getStages().get(size) instanceof FilterStage);
+            Assert.assertTrue(pipeline.getStages().get(size + 1) instanceof TagStage);
+        }
+    }
+}
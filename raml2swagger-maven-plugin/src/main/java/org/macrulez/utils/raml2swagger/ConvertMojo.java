@@ -0,0 +1,231 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.raml.parser.loader.CompositeResourceLoader;
+import org.raml.parser.loader.FileResourceLoader;
+import org.raml.parser.loader.ResourceLoader;
+import org.raml.parser.loader.UrlResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Converts the RAML specs of a module to Swagger in the build process.
+ * <p>
+ * Every spec is fingerprinted with the includes resolved while converting it, and is only converted again when the
+ * spec, one of its includes, its output, the settings or the version of the plugin changed. The state of a module is kept in its own build directory and
+ * written atomically, so modules can be built in parallel.
+ */
+@Mojo(name = "convert", defaultPhase = LifecyclePhase.GENERATE_RESOURCES, threadSafe = true)
+public class ConvertMojo extends AbstractMojo {
+    private static final String[] DEFAULT_INCLUDES = {"**/*.raml"};
+
+    private enum Outcome {CONVERTED, UP_TO_DATE, FAILED}
+
+    @Parameter(property = "raml2swagger.sourceDirectory", defaultValue = "${project.basedir}/src/main/raml")
+    private File sourceDirectory;
+
+    //Glob patterns of the specs relative to the source directory, all RAML files by default
+    @Parameter
+    private String[] includes;
+
+    //Glob patterns of the files not to convert, like fragments included by the specs
+    @Parameter
+    private String[] excludes;
+
+    //The Swagger file of a spec has its relative path, with a .json extension
+    @Parameter(property = "raml2swagger.outputDirectory", defaultValue = "${project.build.directory}/generated-resources/swagger")
+    private File outputDirectory;
+
+    @Parameter(defaultValue = "${project.build.directory}/raml2swagger")
+    private File fingerprintDirectory;
+
+    @Parameter(property = "raml2swagger.encoding", defaultValue = "${project.build.sourceEncoding}")
+    private String encoding;
+
+    @Parameter(property = "raml2swagger.validationMode", defaultValue = "NONE")
+    private ValidationMode validationMode;
+
+    @Parameter(property = "raml2swagger.outputValidation", defaultValue = "false")
+    private boolean outputValidation;
+
+    //Convert every spec, even the unchanged ones
+    @Parameter(property = "raml2swagger.force", defaultValue = "false")
+    private boolean force;
+
+    //Only read the includes whose file size or modification time changed. Faster, but misses an edit which keeps both
+    @Parameter(property = "raml2swagger.trustModificationTimes", defaultValue = "false")
+    private boolean trustModificationTimes;
+
+    @Parameter(property = "raml2swagger.skip", defaultValue = "false")
+    private boolean skip;
+
+    //A new version may convert differently
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping the RAML conversion");
+            return;
+        }
+        if (!sourceDirectory.isDirectory()) {
+            getLog().info("No RAML sources in " + sourceDirectory);
+            return;
+        }
+
+        Charset charset = encoding == null || encoding.isEmpty() ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+        Path source = sourceDirectory.toPath();
+
+        //Everything else which changes the output
+        Map<String, String> settings = new TreeMap<>();
+        settings.put("version", String.valueOf(pluginVersion));
+        settings.put("encoding", charset.name());
+        settings.put("validationMode", String.valueOf(validationMode));
+        settings.put("outputValidation", String.valueOf(outputValidation));
+
+        int converted = 0;
+        int skipped = 0;
+        List<String> failed = new ArrayList<>();
+        for (Path spec : findSpecs(source)) {
+            String relative = source.relativize(spec).toString().replace(File.separatorChar, '/');
+            Outcome outcome;
+            try {
+                outcome = convert(spec, relative, charset, settings);
+            } catch (IOException | RuntimeException e) {
+                //The parser throws on malformed YAML
+                getLog().error("Error converting " + relative, e);
+                outcome = Outcome.FAILED;
+            }
+
+            if (outcome == Outcome.CONVERTED) {
+                converted++;
+            } else if (outcome == Outcome.UP_TO_DATE) {
+                skipped++;
+            } else {
+                failed.add(relative);
+            }
+        }
+
+        getLog().info(String.format("RAML specs: %d converted, %d up to date, %d failed", converted, skipped, failed.size()));
+        if (!failed.isEmpty()) {
+            throw new MojoFailureException("RAML conversion failed for " + String.join(", ", failed));
+        }
+    }
+
+    private List<Path> findSpecs(Path source) throws MojoExecutionException {
+        List<PathMatcher> included = matchers(source.getFileSystem(), includes == null || includes.length == 0 ? DEFAULT_INCLUDES : includes);
+        List<PathMatcher> excluded = matchers(source.getFileSystem(), excludes == null ? new String[0] : excludes);
+
+        try (Stream<Path> files = Files.walk(source)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> matches(included, source.relativize(file)) && !matches(excluded, source.relativize(file)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error listing " + source, e);
+        }
+    }
+
+    //A leading "**/" also matches no directory, as in the other Maven plugins
+    private static List<PathMatcher> matchers(FileSystem fileSystem, String[] patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+            matchers.add(fileSystem.getPathMatcher("glob:" + pattern));
+            if (pattern.startsWith("**/")) {
+                matchers.add(fileSystem.getPathMatcher("glob:" + pattern.substring(3)));
+            }
+        }
+        return matchers;
+    }
+
+    private static boolean matches(List<PathMatcher> matchers, Path path) {
+        return matchers.stream().anyMatch(matcher -> matcher.matches(path));
+    }
+
+    //Convert a spec unless it is up to date
+    private Outcome convert(Path spec, String relative, Charset charset, Map<String, String> settings) throws IOException {
+        String name = relative.endsWith(".raml") ? relative.substring(0, relative.length() - 5) : relative;
+        Path output = outputDirectory.toPath().resolve(name + ".json");
+        Path fingerprintFile = fingerprintDirectory.toPath().resolve(relative + ".properties");
+
+        //Includes are resolved relative to the directory of the spec
+        Path directory = spec.toAbsolutePath().getParent();
+        ResourceLoader loader = new CompositeResourceLoader(new UrlResourceLoader(), new FileResourceLoader(directory.toFile()));
+        byte[] content = Files.readAllBytes(spec);
+
+        Fingerprint previous = force ? null : Fingerprint.read(fingerprintFile);
+        if (previous != null && previous.isCurrent(content, settings, output, directory, loader, trustModificationTimes)) {
+            getLog().debug(relative + " is up to date");
+            return Outcome.UP_TO_DATE;
+        }
+
+        Fingerprint.RecordingResourceLoader recording = new Fingerprint.RecordingResourceLoader(loader, directory);
+        RAMLtoSwagger converter = new RAMLtoSwagger();
+        converter.setCharset(charset);
+        converter.setValidationMode(validationMode);
+        converter.setOutputValidation(outputValidation);
+
+        //Malformed input fails the conversion instead of being replaced
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        String json = converter.convertToSwagger(new InputStreamReader(new ByteArrayInputStream(content), decoder), recording);
+        if (json == null) {
+            getLog().error("Error converting " + relative + ":\n" + converter.getReport());
+            return Outcome.FAILED;
+        }
+        if (!converter.getReport().getDiagnostics().isEmpty()) {
+            getLog().warn(relative + ":\n" + converter.getReport());
+        }
+
+        byte[] swagger = json.getBytes(StandardCharsets.UTF_8);
+        AtomicFiles.write(output, swagger);
+        new Fingerprint(Fingerprint.hash(content), settings, recording.getIncludes(), recording.getModified(), Fingerprint.hash(swagger))
+                .write(fingerprintFile);
+        getLog().debug("Converted " + relative + " to " + output);
+        return Outcome.CONVERTED;
+    }
+}
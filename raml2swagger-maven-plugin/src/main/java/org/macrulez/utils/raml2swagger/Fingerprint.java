@@ -0,0 +1,219 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import lombok.Getter;
+import org.apache.commons.io.IOUtils;
+import org.raml.parser.loader.ResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Content hashes of a RAML spec, of the includes resolved while it was converted and of its output, with the settings
+ * of the conversion. A spec whose settings, content, includes and output still match the recorded ones does not have
+ * to be converted again.
+ * <p>
+ * The size and modification time of the includes which are files are recorded too. If the build trusts them, an
+ * include whose file still has them is not read again.
+ */
+@Getter
+final class Fingerprint {
+    private static final String SPEC_KEY = "spec";
+    private static final String OUTPUT_KEY = "output";
+    private static final String SETTING_PREFIX = "setting.";
+    private static final String INCLUDE_PREFIX = "include.";
+    private static final String MODIFIED_PREFIX = "modified.";
+
+    private final String spec;
+    //Settings which change the output, like the plugin version and the encoding
+    private final Map<String, String> settings;
+    //Resource names as passed to the loader, sorted
+    private final Map<String, String> includes;
+    //Size and modification time of the includes which are files
+    private final Map<String, String> modified;
+    private final String output;
+
+    Fingerprint(String spec, Map<String, String> settings, Map<String, String> includes, Map<String, String> modified, String output) {
+        this.spec = spec;
+        this.settings = Collections.unmodifiableMap(new TreeMap<>(settings));
+        this.includes = Collections.unmodifiableMap(new TreeMap<>(includes));
+        this.modified = Collections.unmodifiableMap(new TreeMap<>(modified));
+        this.output = output;
+    }
+
+    //Hex SHA-256 of the content
+    static String hash(byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest(content)) {
+            sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return sb.toString();
+    }
+
+    //The recorded fingerprint, null if there is none or it can not be read
+    static Fingerprint read(Path file) {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            properties.load(input);
+        } catch (IOException e) {
+            return null;
+        }
+
+        String spec = properties.getProperty(SPEC_KEY);
+        String output = properties.getProperty(OUTPUT_KEY);
+        return spec == null || output == null ? null : new Fingerprint(spec, withPrefix(properties, SETTING_PREFIX),
+                withPrefix(properties, INCLUDE_PREFIX), withPrefix(properties, MODIFIED_PREFIX), output);
+    }
+
+    //The properties of a prefix, without it
+    private static Map<String, String> withPrefix(Properties properties, String prefix) {
+        Map<String, String> values = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                values.put(key.substring(prefix.length()), properties.getProperty(key));
+            }
+        }
+        return values;
+    }
+
+    void write(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(SPEC_KEY, spec);
+        properties.setProperty(OUTPUT_KEY, output);
+        putWithPrefix(properties, SETTING_PREFIX, settings);
+        putWithPrefix(properties, INCLUDE_PREFIX, includes);
+        putWithPrefix(properties, MODIFIED_PREFIX, modified);
+
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        properties.store(content, "raml2swagger fingerprint");
+        AtomicFiles.write(file, content.toByteArray());
+    }
+
+    private static void putWithPrefix(Properties properties, String prefix, Map<String, String> values) {
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            properties.setProperty(prefix + value.getKey(), value.getValue());
+        }
+    }
+
+    //Size and modification time of an include which is a file in the directory, null otherwise
+    static String modified(Path directory, String resourceName) {
+        try {
+            Path file = directory.resolve(resourceName);
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            return Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException | InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /*
+       Whether the settings are the same, and the spec, every include and the output still have the recorded content.
+       The includes are resolved through the loader. If the modification times are trusted, the ones which are files of
+       the directory are only read if their size or modification time changed.
+     */
+    boolean isCurrent(byte[] specContent, Map<String, String> currentSettings, Path outputFile, Path directory, ResourceLoader loader,
+                      boolean trustModified) throws IOException {
+        if (!settings.equals(new TreeMap<>(currentSettings)) || !spec.equals(hash(specContent))
+                || !Files.isRegularFile(outputFile) || !output.equals(hash(Files.readAllBytes(outputFile)))) {
+            return false;
+        }
+
+        for (Map.Entry<String, String> include : includes.entrySet()) {
+            String recorded = trustModified ? modified.get(include.getKey()) : null;
+            if (recorded != null && recorded.equals(modified(directory, include.getKey()))) {
+                continue;
+            }
+
+            InputStream input = loader.fetchResource(include.getKey());
+            if (input == null) {
+                return false;
+            }
+            try (InputStream in = input) {
+                if (!include.getValue().equals(hash(IOUtils.toByteArray(in)))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Loader recording the hash of every resource the parser fetches through it. The content is read once and handed
+     * on from memory, so the recorded hash is the one of what was parsed. The size and modification time of a file
+     * are recorded before it is read, so a file changed meanwhile is read again on the next check.
+     */
+    static final class RecordingResourceLoader implements ResourceLoader {
+        private final ResourceLoader delegate;
+        private final Path directory;
+        @Getter
+        private final Map<String, String> includes = new TreeMap<>();
+        @Getter
+        private final Map<String, String> modified = new TreeMap<>();
+
+        RecordingResourceLoader(ResourceLoader delegate, Path directory) {
+            this.delegate = delegate;
+            this.directory = directory;
+        }
+
+        @Override
+        public InputStream fetchResource(String resourceName) {
+            String stat = modified(directory, resourceName);
+            InputStream input = delegate.fetchResource(resourceName);
+            if (input == null) {
+                return null;
+            }
+
+            byte[] content;
+            try (InputStream in = input) {
+                content = IOUtils.toByteArray(in);
+            } catch (IOException e) {
+                return null;
+            }
+
+            includes.put(resourceName, hash(content));
+            if (stat != null) {
+                modified.put(resourceName, stat);
+            }
+            return new ByteArrayInputStream(content);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+public class ConvertMojoTest {
+    private static final String RAML = "#%RAML 0.8\n" +
+            "---\n" +
+            "title: Items\n" +
+            "baseUri: http://api.example.com/v1\n" +
+            "schemas:\n" +
+            "  - item: !include schemas/item.json\n" +
+            "/items:\n" +
+            "  get:\n";
+    private static final String ITEM = "{ \"type\": \"object\", \"properties\": { \"id\": { \"type\": \"integer\" } } }";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path sources;
+    private Path output;
+    private ConvertMojo mojo;
+
+    //Summary of the last run
+    private String summary;
+
+    @Before
+    public void setUp() throws Exception {
+        sources = folder.newFolder("raml").toPath();
+        output = folder.getRoot().toPath().resolve("swagger/api.json");
+        write("api.raml", RAML);
+        write("schemas/item.json", ITEM);
+
+        mojo = new ConvertMojo();
+        set("sourceDirectory", sources.toFile());
+        set("outputDirectory", output.getParent().toFile());
+        set("fingerprintDirectory", folder.getRoot().toPath().resolve("state").toFile());
+        set("encoding", "UTF-8");
+        set("validationMode", ValidationMode.NONE);
+        set("pluginVersion", "1.0");
+        mojo.setLog(new SystemStreamLog() {
+            @Override
+            public void info(CharSequence content) {
+                summary = content.toString();
+            }
+        });
+    }
+
+    private Path write(String name, String content) throws Exception {
+        Path file = sources.resolve(name);
+        AtomicFiles.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    //Mojo parameters are injected by Maven
+    private void set(String name, Object value) throws Exception {
+        Field field = ConvertMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    private void assertRun(int converted, int upToDate) throws Exception {
+        mojo.execute();
+        Assert.assertEquals(String.format("RAML specs: %d converted, %d up to date, 0 failed", converted, upToDate), summary);
+    }
+
+    @Test
+    public void unchangedSpecsAreSkipped() throws Exception {
+        assertRun(1, 0);
+        Assert.assertTrue(Files.isRegularFile(output));
+        assertRun(0, 1);
+
+        write("api.raml", RAML + "  post:\n");
+        assertRun(1, 0);
+
+        AtomicFiles.write(output, "{}".getBytes(StandardCharsets.UTF_8));
+        assertRun(1, 0);
+
+        set("force", true);
+        assertRun(1, 0);
+    }
+
+    @Test
+    public void changedSettingsConvertAgain() throws Exception {
+        assertRun(1, 0);
+
+        set("encoding", "ISO-8859-1");
+        assertRun(1, 0);
+        assertRun(0, 1);
+
+        set("validationMode", ValidationMode.COLLECT_ALL);
+        assertRun(1, 0);
+
+        set("outputValidation", true);
+        assertRun(1, 0);
+
+        set("pluginVersion", "1.1");
+        assertRun(1, 0);
+        assertRun(0, 1);
+    }
+
+    @Test
+    public void includesAreCheckedByTheirFile() throws Exception {
+        assertRun(1, 0);
+
+        //Touched, but the same content
+        Path item = sources.resolve("schemas/item.json");
+        Files.setLastModifiedTime(item, FileTime.fromMillis(Files.getLastModifiedTime(item).toMillis() + 10_000));
+        assertRun(0, 1);
+
+        write("schemas/item.json", ITEM.replace("integer", "boolean"));
+        assertRun(1, 0);
+
+        //An edit which keeps the size and the modification time
+        FileTime modified = Files.getLastModifiedTime(item);
+        write("schemas/item.json", ITEM);
+        Files.setLastModifiedTime(item, modified);
+        assertRun(1, 0);
+    }
+
+    @Test
+    public void trustedModificationTimes() throws Exception {
+        set("trustModificationTimes", true);
+        assertRun(1, 0);
+        assertRun(0, 1);
+
+        //Touched, read again as its modification time changed
+        Path item = sources.resolve("schemas/item.json");
+        Files.setLastModifiedTime(item, FileTime.fromMillis(Files.getLastModifiedTime(item).toMillis() + 10_000));
+        assertRun(0, 1);
+
+        write("schemas/item.json", ITEM.replace("integer", "string"));
+        assertRun(1, 0);
+    }
+
+    @Test
+    public void malformedInput() throws Exception {
+        //A byte which starts no UTF-8 sequence in place of the question mark
+        byte[] raml = RAML.replace("title: Items", "title: Items?").getBytes(StandardCharsets.US_ASCII);
+        raml[RAML.indexOf("title: Items") + 12] = (byte) 0xff;
+        AtomicFiles.write(sources.resolve("api.raml"), raml);
+
+        try {
+            mojo.execute();
+            Assert.fail("Malformed input should fail the conversion");
+        } catch (MojoFailureException e) {
+            Assert.assertEquals("RAML specs: 0 converted, 0 up to date, 1 failed", summary);
+        }
+        Assert.assertFalse(Files.exists(output));
+    }
+
+    @Test
+    public void skip() throws Exception {
+        set("skip", true);
+        mojo.execute();
+        Assert.assertEquals("Skipping the RAML conversion", summary);
+        Assert.assertFalse(Files.exists(output));
+    }
+}
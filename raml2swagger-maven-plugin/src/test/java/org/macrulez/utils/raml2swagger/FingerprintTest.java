@@ -0,0 +1,122 @@
+/*
+    Raml2Swagger utility
+    Copyright (C) 2017 github.com/esh-b
+    Copyright (C) 2017 Szabolcs Gyurko
+
+    This utility is free software; you can redistribute it and/or
+    modify it under the terms of the GNU Lesser General Public
+    License as published by the Free Software Foundation; either
+    version 2.1 of the License, or (at your option) any later version.
+
+    This utility is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+    Lesser General Public License for more details.
+
+    You should have received a copy of the GNU Lesser General Public
+    License along with this utility; if not, write to the Free Software
+    Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+
+package org.macrulez.utils.raml2swagger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.raml.parser.loader.FileResourceLoader;
+import org.raml.parser.loader.ResourceLoader;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+public class FingerprintTest {
+    private static final String RAML = "#%RAML 0.8\n" +
+            "---\n" +
+            "title: Items\n" +
+            "baseUri: http://api.example.com/v1\n" +
+            "schemas:\n" +
+            "  - item: !include schemas/item.json\n" +
+            "/items:\n" +
+            "  get:\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String name, String content) throws Exception {
+        Path file = folder.getRoot().toPath().resolve(name);
+        AtomicFiles.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static final Map<String, String> SETTINGS = Collections.singletonMap("version", "1.0");
+
+    //Convert like the plugin does, recording the includes
+    private Fingerprint convert(Path spec, Path output, ResourceLoader loader) throws Exception {
+        byte[] content = Files.readAllBytes(spec);
+        Fingerprint.RecordingResourceLoader recording = new Fingerprint.RecordingResourceLoader(loader, folder.getRoot().toPath());
+        String json = new RAMLtoSwagger().convertToSwagger(new String(content, StandardCharsets.UTF_8), recording);
+        Assert.assertNotNull(json);
+
+        byte[] swagger = json.getBytes(StandardCharsets.UTF_8);
+        AtomicFiles.write(output, swagger);
+        return new Fingerprint(Fingerprint.hash(content), SETTINGS, recording.getIncludes(), recording.getModified(), Fingerprint.hash(swagger));
+    }
+
+    @Test
+    public void recordsIncludes() throws Exception {
+        Path spec = write("api.raml", RAML);
+        write("schemas/item.json", "{ \"type\": \"object\", \"properties\": { \"id\": { \"type\": \"integer\" } } }");
+        Path output = folder.getRoot().toPath().resolve("out/api.json");
+        ResourceLoader loader = new FileResourceLoader(folder.getRoot());
+
+        Fingerprint fingerprint = convert(spec, output, loader);
+        Assert.assertEquals(1, fingerprint.getIncludes().size());
+        Assert.assertTrue(fingerprint.getIncludes().containsKey("schemas/item.json"));
+        Assert.assertTrue("The include is a file", fingerprint.getModified().containsKey("schemas/item.json"));
+
+        //The recording loader hands on the content it hashed
+        try (InputStream input = new Fingerprint.RecordingResourceLoader(loader, folder.getRoot().toPath()).fetchResource("schemas/item.json")) {
+            Assert.assertTrue(IOUtils.toString(input, StandardCharsets.UTF_8).contains("integer"));
+        }
+        Assert.assertNull(new Fingerprint.RecordingResourceLoader(loader, folder.getRoot().toPath()).fetchResource("missing.json"));
+    }
+
+    @Test
+    public void upToDateCheck() throws Exception {
+        Path spec = write("api.raml", RAML);
+        write("schemas/item.json", "{ \"type\": \"object\", \"properties\": { \"id\": { \"type\": \"integer\" } } }");
+        Path output = folder.getRoot().toPath().resolve("out/api.json");
+        ResourceLoader loader = new FileResourceLoader(folder.getRoot());
+
+        Path root = folder.getRoot().toPath();
+        Path file = root.resolve("state/api.raml.properties");
+        convert(spec, output, loader).write(file);
+        Fingerprint fingerprint = Fingerprint.read(file);
+        Assert.assertNotNull(fingerprint);
+        Assert.assertTrue("Nothing changed", fingerprint.isCurrent(Files.readAllBytes(spec), SETTINGS, output, root, loader, false));
+        Assert.assertFalse("The settings changed", fingerprint.isCurrent(Files.readAllBytes(spec),
+                Collections.singletonMap("version", "1.1"), output, root, loader, false));
+
+        write("schemas/item.json", "{ \"type\": \"object\", \"properties\": { \"id\": { \"type\": \"string\" } } }");
+        Assert.assertFalse("An include changed", fingerprint.isCurrent(Files.readAllBytes(spec), SETTINGS, output, root, loader, false));
+
+        convert(spec, output, loader).write(file);
+        fingerprint = Fingerprint.read(file);
+        Assert.assertTrue(fingerprint.isCurrent(Files.readAllBytes(spec), SETTINGS, output, root, loader, false));
+
+        write("out/api.json", "{}");
+        Assert.assertFalse("The output changed", fingerprint.isCurrent(Files.readAllBytes(spec), SETTINGS, output, root, loader, false));
+
+        Files.delete(output);
+        Assert.assertFalse("The output is missing", fingerprint.isCurrent(Files.readAllBytes(spec), SETTINGS, output, root, loader, false));
+
+        Assert.assertFalse("The spec changed", fingerprint.isCurrent((RAML + "  post:\n").getBytes(StandardCharsets.UTF_8), SETTINGS, output, root, loader, false));
+        Assert.assertNull(Fingerprint.read(folder.getRoot().toPath().resolve("state/missing.properties")));
+    }
+}